@@ -1,5 +1,8 @@
 package com.arangodb.jackson.dataformat.velocypack;
 
+import com.arangodb.jackson.dataformat.velocypack.internal.ByteBufferVPackParser;
+import com.arangodb.jackson.dataformat.velocypack.internal.MappedVPackParser;
+import com.arangodb.jackson.dataformat.velocypack.internal.NonBlockingVPackParser;
 import com.arangodb.jackson.dataformat.velocypack.internal.VPackGenerator;
 import com.arangodb.jackson.dataformat.velocypack.internal.VPackParser;
 import com.fasterxml.jackson.core.*;
@@ -11,6 +14,9 @@ import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
 public class VPackFactory extends JsonFactory {
     private static final long serialVersionUID = 1;
@@ -37,6 +43,20 @@ public class VPackFactory extends JsonFactory {
      */
     public static final String FORMAT_NAME_VELOCYPACK = "Velocypack";
 
+    /**
+     * Bitfield (set of flags) of all parser features that are enabled
+     * by default.
+     */
+    protected static final int DEFAULT_VPACK_PARSER_FEATURE_FLAGS = VPackParser.Feature.collectDefaults();
+
+    /*
+    /**********************************************************
+    /* Configuration
+    /**********************************************************
+     */
+
+    protected int _formatParserFeatures;
+
     /*
     /**********************************************************
     /* Factory construction, configuration
@@ -44,18 +64,22 @@ public class VPackFactory extends JsonFactory {
      */
 
     public VPackFactory() {
+        this((ObjectCodec) null);
     }
 
     public VPackFactory(ObjectCodec codec) {
         super(codec);
+        _formatParserFeatures = DEFAULT_VPACK_PARSER_FEATURE_FLAGS;
     }
 
     protected VPackFactory(VPackFactory src, ObjectCodec oc) {
         super(src, oc);
+        _formatParserFeatures = src._formatParserFeatures;
     }
 
     protected VPackFactory(VPackFactoryBuilder b) {
         super(b, false);
+        _formatParserFeatures = b.formatParserFeaturesMask();
     }
 
     @Override
@@ -77,6 +101,55 @@ public class VPackFactory extends JsonFactory {
         return new VPackFactory(this, null);
     }
 
+    /*
+    /**********************************************************
+    /* Configuration, parser settings
+    /**********************************************************
+     */
+
+    /**
+     * Method for enabling or disabling specified parser feature
+     * (check {@link VPackParser.Feature} for list of features)
+     */
+    public final VPackFactory configure(VPackParser.Feature f, boolean state) {
+        if (state) {
+            enable(f);
+        } else {
+            disable(f);
+        }
+        return this;
+    }
+
+    /**
+     * Method for enabling specified parser feature
+     * (check {@link VPackParser.Feature} for list of features)
+     */
+    public VPackFactory enable(VPackParser.Feature f) {
+        _formatParserFeatures |= f.getMask();
+        return this;
+    }
+
+    /**
+     * Method for disabling specified parser features
+     * (check {@link VPackParser.Feature} for list of features)
+     */
+    public VPackFactory disable(VPackParser.Feature f) {
+        _formatParserFeatures &= ~f.getMask();
+        return this;
+    }
+
+    /**
+     * Checked whether specified parser feature is enabled.
+     */
+    public final boolean isEnabled(VPackParser.Feature f) {
+        return f.enabledIn(_formatParserFeatures);
+    }
+
+    @Override
+    public int getFormatParserFeatures() {
+        return _formatParserFeatures;
+    }
+
     /*
     /**********************************************************
     /* Serializable overrides
@@ -145,6 +218,11 @@ public class VPackFactory extends JsonFactory {
         return false;
     }
 
+    @Override
+    public boolean canParseAsync() {
+        return true;
+    }
+
     /*
     /**********************************************************
     /* Overridden parser factory methods
@@ -188,6 +266,80 @@ public class VPackFactory extends JsonFactory {
         return _createParser(data, offset, len, ctxt);
     }
 
+    /**
+     * Method for constructing a parser reading in place the content of the given buffer, from its
+     * current position. Heap buffers are parsed through their backing array, other buffers (such as
+     * direct or memory mapped ones) through {@link ByteBufferVPackParser}; in both cases without
+     * copying the input.
+     * The position of the buffer is not changed.
+     */
+    public VPackParser createParser(ByteBuffer data) {
+        IOContext ctxt = _createContext(data, true);
+        if (data.hasArray()) {
+            return configured(new VPackParser(ctxt, _parserFeatures, _objectCodec, data.array(),
+                    data.arrayOffset() + data.position(), data.arrayOffset() + data.limit(), false));
+        }
+        return configured(new ByteBufferVPackParser(ctxt, _parserFeatures, _objectCodec, data));
+    }
+
+    /**
+     * Method for constructing a parser reading the given file through memory mappings instead of a
+     * stream, see {@link MappedVPackParser}: the file may contain any number of consecutive root values
+     * and be larger than 2GB.
+     */
+    public MappedVPackParser createMappedParser(File f) throws IOException {
+        return createMappedParser(f, MappedVPackParser.DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Same as {@link #createMappedParser(File)}, mapping the file in segments of the given size.
+     */
+    public MappedVPackParser createMappedParser(File f, int segmentSize) throws IOException {
+        IOContext ctxt = _createContext(f, true);
+        FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.READ);
+        try {
+            return configured(new MappedVPackParser(ctxt, _parserFeatures, _objectCodec, channel, segmentSize));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Method for constructing a non-blocking parser, fed through the
+     * {@link com.fasterxml.jackson.core.async.ByteArrayFeeder} returned by
+     * {@link JsonParser#getNonBlockingInputFeeder()}.
+     * Content from a {@link java.nio.ByteBuffer} can be fed with
+     * {@link NonBlockingVPackParser#feedInput(java.nio.ByteBuffer)}.
+     */
+    @Override
+    public NonBlockingVPackParser createNonBlockingByteArrayParser() {
+        IOContext ctxt = _createNonBlockingContext(null);
+        return configured(new NonBlockingVPackParser(ctxt, _parserFeatures, _objectCodec));
+    }
+
+    /**
+     * Method for reusing a parser, typically a closed one, to read the given content with the
+     * configuration of this factory, as {@link #createParser(byte[], int, int)} would. This saves the
+     * construction of a new parser for each document; see {@link VPackPool} for a pool of reusable
+     * instances.
+     *
+     * @return the parser to use, which is the given one unless an input decorator is configured
+     */
+    @SuppressWarnings("resource")
+    public VPackParser resetParser(VPackParser p, byte[] data, int offset, int len) throws IOException {
+        IOContext ctxt = _createContext(data, true);
+        if (_inputDecorator != null) {
+            InputStream in = _inputDecorator.decorate(ctxt, data, offset, len);
+            if (in != null) {
+                p.close();
+                return _createParser(in, ctxt);
+            }
+        }
+        p.reset(ctxt, _parserFeatures, _objectCodec, data, offset, offset + len);
+        return configured(p);
+    }
+
     /*
     /**********************************************************
     /* Overridden generator factory methods
@@ -214,6 +366,18 @@ public class VPackFactory extends JsonFactory {
         return createVelocypackGenerator(ctxt, _generatorFeatures, _objectCodec, _decorate(out, ctxt));
     }
 
+    /**
+     * Method for reusing a generator, typically a closed one, to write to the given stream with the
+     * configuration of this factory, as {@link #createGenerator(OutputStream)} would. This saves the
+     * construction of a new generator for each document; see {@link VPackPool} for a pool of reusable
+     * instances.
+     */
+    public VPackGenerator resetGenerator(VPackGenerator g, OutputStream out) throws IOException {
+        IOContext ctxt = _createContext(out, false);
+        g.reset(ctxt, _generatorFeatures, _objectCodec, _decorate(out, ctxt));
+        return g;
+    }
+
     /*
     /******************************************************
     /* Overridden internal factory methods
@@ -222,7 +386,8 @@ public class VPackFactory extends JsonFactory {
 
     @Override
     protected VPackParser _createParser(InputStream in, IOContext ctxt) {
-        throw new UnsupportedOperationException("Stream decoding is not supported!");
+        return configured(new VPackParser(ctxt, _parserFeatures, _objectCodec, in, ctxt.allocReadIOBuffer(),
+                true));
     }
 
     @Override
@@ -238,8 +403,22 @@ public class VPackFactory extends JsonFactory {
 
     @Override
     protected VPackParser _createParser(byte[] data, int offset, int len, IOContext ctxt) {
-        return new VPackParser(ctxt, _parserFeatures,
-                _objectCodec, data, offset, false);
+        return configured(new VPackParser(ctxt, _parserFeatures,
+                _objectCodec, data, offset, offset + len, false));
+    }
+
+    /**
+     * Applies the {@link VPackParser.Feature}s of this factory to the given parser and gives it a child of
+     * the symbol table of this factory, so that field names are decoded once and shared across parsers, if
+     * {@link JsonFactory.Feature#CANONICALIZE_FIELD_NAMES} is enabled. Names are also interned if
+     * {@link JsonFactory.Feature#INTERN_FIELD_NAMES} is enabled.
+     */
+    protected <P extends VPackParser> P configured(P p) {
+        p.overrideFormatFeatures(_formatParserFeatures, -1);
+        if (Feature.CANONICALIZE_FIELD_NAMES.enabledIn(_factoryFeatures)) {
+            p.setNameCanonicalizer(_byteSymbolCanonicalizer.makeChild(_factoryFeatures));
+        }
+        return p;
     }
 
     @Override
@@ -1,18 +1,45 @@
 package com.arangodb.jackson.dataformat.velocypack;
 
 
+import com.arangodb.jackson.dataformat.velocypack.internal.VPackParser;
 import com.fasterxml.jackson.core.TSFBuilder;
 
 /**
  * {@link TSFBuilder} implementation for constructing {@link VPackFactory} instances.
  */
 public class VPackFactoryBuilder extends TSFBuilder<VPackFactory, VPackFactoryBuilder> {
+
+    /**
+     * Set of {@link VPackParser.Feature}s enabled, as bitmask.
+     */
+    protected int _formatParserFeatures;
+
     public VPackFactoryBuilder() {
         super();
+        _formatParserFeatures = VPackFactory.DEFAULT_VPACK_PARSER_FEATURE_FLAGS;
     }
 
     public VPackFactoryBuilder(VPackFactory base) {
         super(base);
+        _formatParserFeatures = base._formatParserFeatures;
+    }
+
+    public VPackFactoryBuilder enable(VPackParser.Feature f) {
+        _formatParserFeatures |= f.getMask();
+        return this;
+    }
+
+    public VPackFactoryBuilder disable(VPackParser.Feature f) {
+        _formatParserFeatures &= ~f.getMask();
+        return this;
+    }
+
+    public VPackFactoryBuilder configure(VPackParser.Feature f, boolean state) {
+        return state ? enable(f) : disable(f);
+    }
+
+    public int formatParserFeaturesMask() {
+        return _formatParserFeatures;
     }
 
     @Override
@@ -0,0 +1,109 @@
+package com.arangodb.jackson.dataformat.velocypack;
+
+import com.arangodb.jackson.dataformat.velocypack.internal.LazyArrayNode;
+import com.arangodb.jackson.dataformat.velocypack.internal.LazyObjectNode;
+import com.arangodb.jackson.dataformat.velocypack.internal.LazyTree;
+import com.arangodb.jackson.dataformat.velocypack.internal.VPackParser;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.deser.std.JsonNodeDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+
+/**
+ * Module reading {@link JsonNode}, {@link ObjectNode} and {@link ArrayNode} values from VelocyPack as lazy
+ * trees of {@link LazyObjectNode} and {@link LazyArrayNode}: Object members and Array elements are decoded
+ * from the VelocyPack bytes only when accessed, e.g. through {@link JsonNode#get(String)},
+ * {@link JsonNode#path(int)} or iteration, so that reading a few fields of a large document does not build
+ * the whole tree:
+ * <pre>
+ * VPackMapper mapper = new VPackMapper();
+ * mapper.registerModule(new VPackLazyTreeModule());
+ * JsonNode doc = mapper.readTree(bytes);
+ * </pre>
+ * Trees read from a byte array share it, so the array must not be modified while they are in use. Lazy trees
+ * are not thread-safe, not even for reading. Parsers projecting their input with a
+ * {@link VPackSchema} read regular trees.
+ */
+public class VPackLazyTreeModule extends SimpleModule {
+
+    private static final long serialVersionUID = 1L;
+
+    public VPackLazyTreeModule() {
+        super(VPackLazyTreeModule.class.getSimpleName());
+        addDeserializer(JsonNode.class, new LazyNodeDeserializer<>(JsonNode.class));
+        addDeserializer(ObjectNode.class, new LazyNodeDeserializer<>(ObjectNode.class));
+        addDeserializer(ArrayNode.class, new LazyNodeDeserializer<>(ArrayNode.class));
+    }
+
+    /**
+     * Reads Objects and Arrays from a {@link VPackParser} as lazy trees, anything else as the default
+     * {@link JsonNodeDeserializer} does.
+     */
+    private static final class LazyNodeDeserializer<T extends JsonNode> extends StdDeserializer<T> {
+        private static final long serialVersionUID = 1L;
+
+        private final JsonDeserializer<Object> delegate;
+
+        @SuppressWarnings("unchecked")
+        LazyNodeDeserializer(final Class<T> type) {
+            super(type);
+            delegate = (JsonDeserializer<Object>) (JsonDeserializer<?>) JsonNodeDeserializer.getDeserializer(type);
+        }
+
+        @SuppressWarnings("unchecked")
+        private T cast(final Object node) {
+            return (T) node;
+        }
+
+        @Override
+        public T deserialize(final JsonParser p, final DeserializationContext ctxt) throws IOException {
+            if (p instanceof VPackParser && ((VPackParser) p).getSchema() == null) {
+                final JsonToken token = p.currentToken();
+                if ((token == JsonToken.START_OBJECT && handledType() != ArrayNode.class)
+                        || (token == JsonToken.START_ARRAY && handledType() != ObjectNode.class)) {
+                    return cast(LazyTree.read((VPackParser) p, ctxt));
+                }
+            }
+            return cast(delegate.deserialize(p, ctxt));
+        }
+
+        @Override
+        public Object deserializeWithType(final JsonParser p, final DeserializationContext ctxt,
+                                          final TypeDeserializer typeDeserializer) throws IOException {
+            return delegate.deserializeWithType(p, ctxt, typeDeserializer);
+        }
+
+        @Override
+        public T getNullValue(final DeserializationContext ctxt) throws JsonMappingException {
+            return cast(delegate.getNullValue(ctxt));
+        }
+
+        @Override
+        public boolean isCachable() {
+            return true;
+        }
+
+        @Override
+        public Boolean supportsUpdate(final DeserializationConfig config) {
+            return delegate.supportsUpdate(config);
+        }
+
+        @Override
+        public T deserialize(final JsonParser p, final DeserializationContext ctxt, final T intoValue)
+                throws IOException {
+            return cast(delegate.deserialize(p, ctxt, intoValue));
+        }
+    }
+
+}
@@ -20,8 +20,38 @@
 
 package com.arangodb.jackson.dataformat.velocypack;
 
+import com.arangodb.jackson.dataformat.velocypack.internal.BinaryViewDeserializer;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.fasterxml.jackson.core.FormatSchema;
+import com.fasterxml.jackson.core.TreeNode;
+import com.fasterxml.jackson.databind.AnnotationIntrospector;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.InjectableValues;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.PropertyName;
 import com.fasterxml.jackson.databind.cfg.MapperBuilder;
+import com.fasterxml.jackson.databind.deser.BasicDeserializerFactory;
+import com.fasterxml.jackson.databind.deser.BeanDeserializerFactory;
+import com.fasterxml.jackson.databind.deser.DefaultDeserializationContext;
+import com.fasterxml.jackson.databind.deser.DeserializerFactory;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.jsontype.NamedType;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
+import com.fasterxml.jackson.databind.jsontype.impl.AsDeductionTypeDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleDeserializers;
+import com.fasterxml.jackson.databind.util.NameTransformer;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * @author Mark Vollmary
@@ -49,7 +79,11 @@ public class VPackMapper extends ObjectMapper {
 	}
 
 	public VPackMapper(VPackFactory jf) {
-		super(jf);
+		// byte[] values are also bound from the views of VPackParser.Feature.BINARY_AS_BYTE_BUFFER
+		super(jf, null, new DefaultDeserializationContext.Impl(
+				BeanDeserializerFactory.instance.withAdditionalDeserializers(new SimpleDeserializers(
+						Collections.<Class<?>, JsonDeserializer<?>>singletonMap(byte[].class,
+								new BinaryViewDeserializer())))));
 	}
 
 	protected VPackMapper(VPackMapper src) {
@@ -67,4 +101,115 @@ public class VPackMapper extends ObjectMapper {
 		return (VPackFactory) _jsonFactory;
 	}
 
+	/**
+	 * Method for constructing a {@link VPackSchema} selecting the properties the given type is deserialized
+	 * from, to read it with {@link ObjectReader#with(FormatSchema)} without decoding any other attribute. It
+	 * includes aliases, the properties of {@link JsonUnwrapped} values and, for polymorphic types, the type id
+	 * property and the properties of all the registered subtypes.
+	 *
+	 * @throws IllegalArgumentException if the type can not be projected without losing data: types not read
+	 *                                  as beans, with an any-setter, read with default typing, with deduced
+	 *                                  subtypes or with type ids included other than as a property
+	 */
+	public VPackSchema schemaFor(Class<?> type) {
+		DeserializationConfig config = getDeserializationConfig();
+		JavaType javaType = constructType(type);
+		if (javaType.isContainerType() || javaType.isEnumType() || javaType.isTypeOrSubTypeOf(TreeNode.class)) {
+			throw new IllegalArgumentException("Can not project " + type.getName() + ", it is not read as a bean");
+		}
+		BeanDescription description = config.introspect(javaType);
+		DeserializerFactory factory = getDeserializationContext().getFactory();
+		Set<String> names = new LinkedHashSet<>();
+		try {
+			TypeDeserializer typeDeserializer = factory.findTypeDeserializer(config, javaType);
+			if (typeDeserializer != null) {
+				names.add(typeIdProperty(type, description, typeDeserializer));
+			}
+			collectProperties(config, factory, description, NameTransformer.NOP, names);
+			if (typeDeserializer != null) {
+				for (NamedType subtype : config.getSubtypeResolver()
+						.collectAndResolveSubtypesByClass(config, description.getClassInfo())) {
+					if (subtype.getType() != type) {
+						collectProperties(config, factory, config.introspect(constructType(subtype.getType())),
+								NameTransformer.NOP, names);
+					}
+				}
+			}
+		} catch (JsonMappingException e) {
+			throw new IllegalArgumentException("Can not project " + type.getName() + ": " + e.getOriginalMessage(), e);
+		}
+		return new VPackSchema(names);
+	}
+
+	/**
+	 * @return the name of the property holding the type id of the given polymorphic type
+	 */
+	private static String typeIdProperty(Class<?> type, BeanDescription description,
+			TypeDeserializer typeDeserializer) {
+		if (description.getClassAnnotations().get(JsonTypeInfo.class) == null) {
+			throw new IllegalArgumentException("Can not project " + type.getName() + ", it is read with default typing");
+		} else if (typeDeserializer instanceof AsDeductionTypeDeserializer) {
+			throw new IllegalArgumentException("Can not project " + type.getName()
+					+ ", its subtypes are deduced from their properties");
+		}
+		JsonTypeInfo.As inclusion = typeDeserializer.getTypeInclusion();
+		if (inclusion != JsonTypeInfo.As.PROPERTY && inclusion != JsonTypeInfo.As.EXISTING_PROPERTY) {
+			throw new IllegalArgumentException("Can not project " + type.getName() + ", its type id is included as "
+					+ inclusion);
+		}
+		return typeDeserializer.getPropertyName();
+	}
+
+	/**
+	 * Adds the names of the properties the type of the given description is deserialized from, as renamed by
+	 * the given transformer, recursing into unwrapped properties.
+	 */
+	private static void collectProperties(DeserializationConfig config, DeserializerFactory factory,
+			BeanDescription description, NameTransformer transformer, Set<String> names) throws JsonMappingException {
+		if (description.findAnySetterAccessor() != null) {
+			throw new IllegalArgumentException("Can not project " + description.getBeanClass().getName()
+					+ ", it has an any-setter");
+		}
+		AnnotationIntrospector introspector = config.getAnnotationIntrospector();
+		for (BeanPropertyDefinition property : description.findProperties()) {
+			if (!property.couldDeserialize()) {
+				continue;
+			}
+			AnnotatedMember member = property.getPrimaryMember();
+			NameTransformer unwrapper = introspector.findUnwrappingNameTransformer(member);
+			if (unwrapper != null) {
+				collectProperties(config, factory, config.introspect(property.getPrimaryType()),
+						NameTransformer.chainedTransformer(transformer, unwrapper), names);
+				continue;
+			}
+			if (factory instanceof BasicDeserializerFactory) {
+				TypeDeserializer typeDeserializer = ((BasicDeserializerFactory) factory)
+						.findPropertyTypeDeserializer(config, property.getPrimaryType(), member);
+				if (typeDeserializer != null
+						&& typeDeserializer.getTypeInclusion() == JsonTypeInfo.As.EXTERNAL_PROPERTY) {
+					throw new IllegalArgumentException("Can not project " + description.getBeanClass().getName()
+							+ ", the type id of " + property.getName() + " is an external property");
+				}
+			}
+			names.add(transformer.transform(property.getName()));
+			List<PropertyName> aliases = introspector.findPropertyAliases(member);
+			if (aliases != null) {
+				for (PropertyName alias : aliases) {
+					names.add(transformer.transform(alias.getSimpleName()));
+				}
+			}
+		}
+	}
+
+	@Override
+	protected ObjectReader _newReader(DeserializationConfig config) {
+		return new VPackReader(this, config);
+	}
+
+	@Override
+	protected ObjectReader _newReader(DeserializationConfig config, JavaType valueType, Object valueToUpdate,
+			FormatSchema schema, InjectableValues injectableValues) {
+		return new VPackReader(this, config, valueType, valueToUpdate, schema, injectableValues);
+	}
+
 }
@@ -0,0 +1,117 @@
+package com.arangodb.jackson.dataformat.velocypack;
+
+import com.arangodb.jackson.dataformat.velocypack.internal.VPackGenerator;
+import com.arangodb.jackson.dataformat.velocypack.internal.VPackParser;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of reusable {@link VPackParser} and {@link VPackGenerator} instances of a {@link VPackFactory},
+ * which are reset to new content through {@link VPackFactory#resetParser(VPackParser, byte[], int, int)} and
+ * {@link VPackFactory#resetGenerator(VPackGenerator, OutputStream)}. The pool is lock-free and can be shared
+ * between threads, instances must be released by the thread using them once done:
+ * <pre>
+ * VPackParser p = pool.acquireParser(bytes);
+ * try {
+ *     return mapper.readValue(p, MyValue.class);
+ * } finally {
+ *     pool.release(p);
+ * }
+ * </pre>
+ * Released instances must not be used anymore.
+ */
+public class VPackPool {
+
+    public static final int DEFAULT_MAX_SIZE = 64;
+
+    protected final VPackFactory factory;
+    private final Instances<VPackParser> parsers;
+    private final Instances<VPackGenerator> generators;
+
+    public VPackPool(VPackFactory factory) {
+        this(factory, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param maxSize maximum number of idle parsers, and of idle generators, kept by the pool
+     */
+    public VPackPool(VPackFactory factory, int maxSize) {
+        this.factory = factory;
+        parsers = new Instances<>(maxSize);
+        generators = new Instances<>(maxSize);
+    }
+
+    public VPackParser acquireParser(byte[] data) throws IOException {
+        return acquireParser(data, 0, data.length);
+    }
+
+    /**
+     * @return a pooled parser reset to the given content, or a new one if none is available
+     */
+    public VPackParser acquireParser(byte[] data, int offset, int len) throws IOException {
+        final VPackParser p = parsers.poll();
+        return p != null ? factory.resetParser(p, data, offset, len) : factory.createParser(data, offset, len);
+    }
+
+    /**
+     * @return a pooled generator reset to the given output, or a new one if none is available
+     */
+    public VPackGenerator acquireGenerator(OutputStream out) throws IOException {
+        final VPackGenerator g = generators.poll();
+        return g != null ? factory.resetGenerator(g, out) : factory.createGenerator(out);
+    }
+
+    /**
+     * Closes the given parser and gives it back to the pool.
+     */
+    public void release(VPackParser p) throws IOException {
+        p.close();
+        if (p.getClass() == VPackParser.class) {
+            parsers.offer(p);
+        }
+    }
+
+    /**
+     * Closes the given generator and gives it back to the pool.
+     */
+    public void release(VPackGenerator g) throws IOException {
+        g.close();
+        if (g.getClass() == VPackGenerator.class) {
+            generators.offer(g);
+        }
+    }
+
+    /**
+     * Idle instances, at most {@link #maxSize}.
+     */
+    private static final class Instances<T> {
+        private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final int maxSize;
+
+        Instances(final int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        T poll() {
+            final T instance = queue.poll();
+            if (instance != null) {
+                size.decrementAndGet();
+            }
+            return instance;
+        }
+
+        void offer(final T instance) {
+            if (size.incrementAndGet() <= maxSize) {
+                queue.offer(instance);
+            } else {
+                size.decrementAndGet();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2016 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.jackson.dataformat.velocypack;
+
+import com.arangodb.jackson.dataformat.velocypack.internal.VPackParser;
+import com.fasterxml.jackson.core.FormatSchema;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.filter.JsonPointerBasedFilter;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.InjectableValues;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.deser.DataFormatReaders;
+
+/**
+ * {@link ObjectReader} created by {@link VPackMapper}: single values read {@link #at(JsonPointer)} a
+ * pointer are located with {@link VPackParser#seek(JsonPointer)}, following the index tables, instead of
+ * filtering all the tokens in front of them.
+ */
+public class VPackReader extends ObjectReader {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Pointer of the {@link JsonPointerBasedFilter} set by {@link #at(JsonPointer)}, if any.
+	 */
+	protected final JsonPointer pointer;
+
+	protected VPackReader(ObjectMapper mapper, DeserializationConfig config) {
+		super(mapper, config);
+		pointer = null;
+	}
+
+	protected VPackReader(ObjectMapper mapper, DeserializationConfig config, JavaType valueType,
+			Object valueToUpdate, FormatSchema schema, InjectableValues injectableValues) {
+		super(mapper, config, valueType, valueToUpdate, schema, injectableValues);
+		pointer = null;
+	}
+
+	protected VPackReader(VPackReader base, DeserializationConfig config, JavaType valueType,
+			JsonDeserializer<Object> rootDeser, Object valueToUpdate, FormatSchema schema,
+			InjectableValues injectableValues, DataFormatReaders dataFormatReaders) {
+		super(base, config, valueType, rootDeser, valueToUpdate, schema, injectableValues, dataFormatReaders);
+		pointer = base.pointer;
+	}
+
+	protected VPackReader(VPackReader base, DeserializationConfig config) {
+		super(base, config);
+		pointer = base.pointer;
+	}
+
+	protected VPackReader(VPackReader base, JsonFactory f) {
+		super(base, f);
+		pointer = base.pointer;
+	}
+
+	protected VPackReader(VPackReader base, JsonPointer pointer) {
+		super(base, new JsonPointerBasedFilter(pointer));
+		this.pointer = pointer;
+	}
+
+	@Override
+	protected ObjectReader _new(ObjectReader base, JsonFactory f) {
+		return new VPackReader((VPackReader) base, f);
+	}
+
+	@Override
+	protected ObjectReader _new(ObjectReader base, DeserializationConfig config) {
+		return new VPackReader((VPackReader) base, config);
+	}
+
+	@Override
+	protected ObjectReader _new(ObjectReader base, DeserializationConfig config, JavaType valueType,
+			JsonDeserializer<Object> rootDeser, Object valueToUpdate, FormatSchema schema,
+			InjectableValues injectableValues, DataFormatReaders dataFormatReaders) {
+		return new VPackReader((VPackReader) base, config, valueType, rootDeser, valueToUpdate, schema,
+			injectableValues, dataFormatReaders);
+	}
+
+	@Override
+	public VPackReader at(final String pointerExpr) {
+		_assertNotNull("pointerExpr", pointerExpr);
+		return new VPackReader(this, JsonPointer.compile(pointerExpr));
+	}
+
+	@Override
+	public VPackReader at(final JsonPointer pointer) {
+		_assertNotNull("pointer", pointer);
+		return new VPackReader(this, pointer);
+	}
+
+	@Override
+	protected JsonParser _considerFilter(final JsonParser p, final boolean multiValue) {
+		if (pointer != null && !multiValue && p instanceof VPackParser && ((VPackParser) p).seek(pointer)) {
+			return p;
+		}
+		return super._considerFilter(p, multiValue);
+	}
+
+}
@@ -0,0 +1,60 @@
+package com.arangodb.jackson.dataformat.velocypack;
+
+import com.fasterxml.jackson.core.FormatSchema;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * {@link FormatSchema} projecting the Objects read at the root level, e.g. the documents read with an
+ * {@link com.fasterxml.jackson.databind.ObjectReader}, to the given attributes: the parser looks them up
+ * through the index table of the Object, if sorted, and skips all the other members by offset without
+ * decoding them. Nested values of the selected attributes are read as a whole.
+ * <pre>
+ * Narrow narrow = mapper.readerFor(Narrow.class)
+ *         .with(mapper.schemaFor(Narrow.class))
+ *         .readValue(bytes);
+ * </pre>
+ * Instances are immutable and thread-safe.
+ *
+ * @see VPackMapper#schemaFor(Class)
+ */
+public class VPackSchema implements FormatSchema {
+
+    /**
+     * Same as {@link VPackFactory#FORMAT_NAME_VELOCYPACK}, as checked by
+     * {@link com.fasterxml.jackson.core.JsonFactory#canUseSchema(FormatSchema)}.
+     */
+    public static final String SCHEMA_TYPE = VPackFactory.FORMAT_NAME_VELOCYPACK;
+
+    private final Set<String> names;
+
+    public VPackSchema(final Collection<String> names) {
+        this.names = Collections.unmodifiableSet(new LinkedHashSet<>(names));
+    }
+
+    public static VPackSchema of(final String... names) {
+        return new VPackSchema(Arrays.asList(names));
+    }
+
+    /**
+     * @return the names of the attributes to read
+     */
+    public Set<String> getNames() {
+        return names;
+    }
+
+    @Override
+    public String getSchemaType() {
+        return SCHEMA_TYPE;
+    }
+
+    @Override
+    public String toString() {
+        return "VPackSchema" + names;
+    }
+
+}
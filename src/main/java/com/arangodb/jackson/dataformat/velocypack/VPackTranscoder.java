@@ -0,0 +1,148 @@
+package com.arangodb.jackson.dataformat.velocypack;
+
+import com.arangodb.jackson.dataformat.velocypack.internal.VPackGenerator;
+import com.arangodb.jackson.dataformat.velocypack.internal.VPackParser;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.json.UTF8JsonGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming conversion between JSON and VelocyPack, copying the tokens of a parser to a generator without
+ * building an intermediate tree:
+ * <pre>
+ * VPackTranscoder transcoder = new VPackTranscoder();
+ * byte[] vpack = transcoder.toVPack(json);
+ * String json = transcoder.toJson(vpack);
+ * </pre>
+ * Towards VelocyPack, Strings are encoded to UTF-8 straight from the text buffer of the JSON parser and
+ * numbers are written as parsed: integers as int, long or (as String) BigInteger depending on their size,
+ * floating point numbers as double. Towards JSON, Strings are escaped straight from the UTF-8 bytes of the
+ * VelocyPack input, unless the JSON generator is configured with custom character escapes. Input consisting
+ * of a sequence of root values is converted into a sequence of root values. Instances are thread-safe.
+ */
+public class VPackTranscoder {
+
+    protected final JsonFactory jsonFactory;
+    protected final VPackFactory vpackFactory;
+
+    /**
+     * Creates a transcoder using default factories, where doubles are written to JSON with the fast
+     * shortest-representation formatting of Jackson 2.14+, if available.
+     */
+    public VPackTranscoder() {
+        this(defaultJsonFactory(), new VPackFactory());
+    }
+
+    public VPackTranscoder(JsonFactory jsonFactory, VPackFactory vpackFactory) {
+        this.jsonFactory = jsonFactory;
+        this.vpackFactory = vpackFactory;
+    }
+
+    public byte[] toVPack(String json) throws IOException {
+        try (JsonParser p = jsonFactory.createParser(json)) {
+            return toVPack(p);
+        }
+    }
+
+    public byte[] toVPack(byte[] json) throws IOException {
+        try (JsonParser p = jsonFactory.createParser(json)) {
+            return toVPack(p);
+        }
+    }
+
+    /**
+     * Converts the JSON read from the given stream, the streams are closed as configured by the
+     * {@link JsonParser.Feature#AUTO_CLOSE_SOURCE} and {@link JsonGenerator.Feature#AUTO_CLOSE_TARGET}
+     * features of the factories.
+     */
+    public void toVPack(InputStream json, OutputStream vpack) throws IOException {
+        try (JsonParser p = jsonFactory.createParser(json);
+             JsonGenerator g = vpackFactory.createGenerator(vpack)) {
+            copy(p, g);
+        }
+    }
+
+    public String toJson(byte[] vpack) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        toJson(vpack, out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the given VelocyPack as UTF-8 encoded JSON to the given stream, which is closed as configured by
+     * the {@link JsonGenerator.Feature#AUTO_CLOSE_TARGET} feature of the JSON factory.
+     */
+    public void toJson(byte[] vpack, OutputStream json) throws IOException {
+        try (JsonParser p = vpackFactory.createParser(vpack);
+             JsonGenerator g = jsonFactory.createGenerator(json, JsonEncoding.UTF8)) {
+            copy(p, g);
+        }
+    }
+
+    /**
+     * Converts the VelocyPack read from the given stream, the streams are closed as configured by the
+     * {@link JsonParser.Feature#AUTO_CLOSE_SOURCE} and {@link JsonGenerator.Feature#AUTO_CLOSE_TARGET}
+     * features of the factories.
+     */
+    public void toJson(InputStream vpack, OutputStream json) throws IOException {
+        try (JsonParser p = vpackFactory.createParser(vpack);
+             JsonGenerator g = jsonFactory.createGenerator(json, JsonEncoding.UTF8)) {
+            copy(p, g);
+        }
+    }
+
+    private byte[] toVPack(JsonParser p) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator g = vpackFactory.createGenerator(out)) {
+            copy(p, g);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Copies all the root values of the given parser to the given generator.
+     */
+    public static void copy(JsonParser p, JsonGenerator g) throws IOException {
+        if (p instanceof VPackParser && !(g instanceof VPackGenerator)) {
+            copy((VPackParser) p, g);
+            return;
+        }
+        while (p.nextToken() != null) {
+            g.copyCurrentStructure(p);
+        }
+    }
+
+    private static void copy(VPackParser p, JsonGenerator g) throws IOException {
+        // writeUTF8String() only applies the standard escapes
+        final boolean utf8 = g instanceof UTF8JsonGenerator && g.getCharacterEscapes() == null
+                && g.getHighestEscapedChar() == 0;
+        JsonToken token;
+        while ((token = p.nextToken()) != null) {
+            if (token == JsonToken.VALUE_STRING && utf8) {
+                p.writeUTF8String(g);
+            } else {
+                g.copyCurrentEvent(p);
+            }
+        }
+    }
+
+    private static JsonFactory defaultJsonFactory() {
+        final JsonFactory factory = new JsonFactory();
+        try {
+            factory.enable(JsonGenerator.Feature.valueOf("USE_FAST_DOUBLE_WRITER"));
+        } catch (IllegalArgumentException e) {
+            // before Jackson 2.14
+        }
+        return factory;
+    }
+
+}
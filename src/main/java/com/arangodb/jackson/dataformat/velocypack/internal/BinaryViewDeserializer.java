@@ -0,0 +1,44 @@
+package com.arangodb.jackson.dataformat.velocypack.internal;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.deser.std.DelegatingDeserializer;
+import com.fasterxml.jackson.databind.deser.std.PrimitiveArrayDeserializers;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Deserializer of {@code byte[]} values also reading the {@link ByteBuffer} views returned by parsers with
+ * {@link VPackParser.Feature#BINARY_AS_BYTE_BUFFER} enabled, which the standard one only binds from
+ * {@code byte[]} embedded objects. The views are copied, data binding does not benefit from the feature.
+ * Any other value is read by the standard deserializer.
+ */
+public class BinaryViewDeserializer extends DelegatingDeserializer {
+
+    private static final long serialVersionUID = 1L;
+
+    public BinaryViewDeserializer() {
+        this(PrimitiveArrayDeserializers.forType(Byte.TYPE));
+    }
+
+    protected BinaryViewDeserializer(final JsonDeserializer<?> delegatee) {
+        super(delegatee);
+    }
+
+    @Override
+    protected JsonDeserializer<?> newDelegatingInstance(final JsonDeserializer<?> newDelegatee) {
+        return new BinaryViewDeserializer(newDelegatee);
+    }
+
+    @Override
+    public Object deserialize(final JsonParser p, final DeserializationContext ctxt) throws IOException {
+        if (p.hasToken(JsonToken.VALUE_EMBEDDED_OBJECT) && p.getEmbeddedObject() instanceof ByteBuffer) {
+            return p.getBinaryValue(ctxt.getBase64Variant());
+        }
+        return _delegatee.deserialize(p, ctxt);
+    }
+
+}
@@ -0,0 +1,149 @@
+package com.arangodb.jackson.dataformat.velocypack.internal;
+
+import com.arangodb.velocypack.VPackSlice;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.io.IOContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link VPackParser} reading in place from a {@link ByteBuffer}, typically a direct one: offsets are
+ * absolute indexes of the buffer, content is only copied to the heap for the decoded Strings and binary
+ * values (unless viewed as {@link ByteBuffer}), and for the slices returned by {@link #getVPack()}.
+ * <p>
+ * Buffers backed by an accessible array are better parsed as such, see
+ * {@link com.arangodb.jackson.dataformat.velocypack.VPackFactory#createParser(ByteBuffer)}.
+ */
+public class ByteBufferVPackParser extends VPackParser {
+
+    protected ByteBuffer input;
+
+    /**
+     * Reusable buffer for decoding Strings and streaming binary values, initially allocated by the
+     * {@link IOContext}.
+     */
+    private byte[] stringBuffer;
+    private boolean stringBufferRecyclable;
+
+    public ByteBufferVPackParser(IOContext ctxt, int parserFeatures, ObjectCodec codec, ByteBuffer input) {
+        super(ctxt, parserFeatures, codec, null, input.position(), false);
+        this.input = input.duplicate();
+        inputEnd = input.limit();
+        stringBuffer = ctxt.allocReadIOBuffer();
+        stringBufferRecyclable = true;
+    }
+
+    /**
+     * Not supported: only parsers reading byte arrays can be reset.
+     */
+    @Override
+    public void reset(IOContext ctxt, int parserFeatures, ObjectCodec codec, byte[] inputBuffer, int start,
+                      int end) {
+        throw new UnsupportedOperationException("reset is not supported by " + getClass().getSimpleName());
+    }
+
+    @Override
+    public Object getInputSource() {
+        return input;
+    }
+
+    @Override
+    protected byte byteAt(final int offset) {
+        return input.get(offset);
+    }
+
+    @Override
+    protected String readUtf8(final int offset, final int length) {
+        final byte[] buf = copyToStringBuffer(offset, length);
+        return new String(buf, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Copies the given range of the input to the start of the {@link #stringBuffer}, grown as needed.
+     *
+     * @return the string buffer
+     */
+    private byte[] copyToStringBuffer(final int offset, final int length) {
+        byte[] buf = stringBuffer;
+        if (buf.length < length) {
+            stringBuffer = new byte[Math.max(length, buf.length << 1)];
+            if (stringBufferRecyclable) {
+                stringBufferRecyclable = false;
+                ioContext.releaseReadIOBuffer(buf);
+            }
+            buf = stringBuffer;
+        }
+        final ByteBuffer src = input.duplicate();
+        ((Buffer) src).position(offset);
+        src.get(buf, 0, length);
+        return buf;
+    }
+
+    @Override
+    protected byte[] copyRange(final int from, final int to) {
+        final byte[] copy = new byte[to - from];
+        final ByteBuffer src = input.duplicate();
+        ((Buffer) src).position(from);
+        src.get(copy);
+        return copy;
+    }
+
+    @Override
+    protected ByteBuffer viewRange(final int from, final int to) {
+        final ByteBuffer view = input.duplicate();
+        ((Buffer) view).limit(to).position(from);
+        return view.slice().asReadOnlyBuffer();
+    }
+
+    @Override
+    protected void writeRange(final OutputStream out, final int offset, final int length) throws IOException {
+        final byte[] buf = stringBuffer;
+        final ByteBuffer src = input.duplicate();
+        ((Buffer) src).position(offset);
+        for (int remaining = length; remaining > 0; ) {
+            final int n = Math.min(remaining, buf.length);
+            src.get(buf, 0, n);
+            out.write(buf, 0, n);
+            remaining -= n;
+        }
+    }
+
+    @Override
+    protected void releaseBuffers() {
+        super.releaseBuffers();
+        final byte[] buf = stringBuffer;
+        if (buf != null) {
+            stringBuffer = null;
+            if (stringBufferRecyclable) {
+                ioContext.releaseReadIOBuffer(buf);
+            }
+        }
+    }
+
+    /**
+     * Writes the String from the backing array of the input, if accessible, otherwise from a copy in the
+     * {@link #stringBuffer}.
+     */
+    @Override
+    protected void writeUTF8String(final JsonGenerator g, final int offset, final int length) throws IOException {
+        if (input.hasArray()) {
+            g.writeUTF8String(input.array(), input.arrayOffset() + offset, length);
+        } else {
+            g.writeUTF8String(copyToStringBuffer(offset, length), 0, length);
+        }
+    }
+
+    /**
+     * @return a slice over a heap copy of the current value
+     */
+    @Override
+    public VPackSlice getVPack() {
+        return new VPackSlice(copyRange(currentStart, currentStart + byteSize(currentStart)));
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.arangodb.jackson.dataformat.velocypack.internal;
+
+import com.fasterxml.jackson.core.io.IOContext;
+
+/**
+ * Helpers for {@link IOContext} across the supported Jackson versions.
+ */
+final class IOContextUtil {
+
+    private IOContextUtil() {
+    }
+
+    /**
+     * Closes the given context, if supported (Jackson 2.16+): this gives its
+     * {@link com.fasterxml.jackson.core.util.BufferRecycler} back to the {@code RecyclerPool} of the factory,
+     * which is needed by pools that are not thread-local. Buffers have to be released to the context before.
+     */
+    static void close(final IOContext ctxt) {
+        if (ctxt instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) ctxt).close();
+            } catch (final Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+}
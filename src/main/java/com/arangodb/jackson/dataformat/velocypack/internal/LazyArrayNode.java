@@ -0,0 +1,149 @@
+package com.arangodb.jackson.dataformat.velocypack.internal;
+
+import com.arangodb.velocypack.VPackSlice;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * {@link ArrayNode} of a {@link LazyTree}: elements are decoded one at a time when accessed by index or
+ * iterated over, any modification decodes all of them once.
+ */
+// deepCopy() of ArrayNode overrides the generic one of JsonNode
+@SuppressWarnings("unchecked")
+public class LazyArrayNode extends ArrayNode {
+
+    private static final long serialVersionUID = 1L;
+
+    private final LazyTree tree;
+    private final int start;
+    private final Elements elements;
+
+    LazyArrayNode(final LazyTree tree, final int start) {
+        this(tree, start, new Elements(tree, start));
+    }
+
+    private LazyArrayNode(final LazyTree tree, final int start, final Elements elements) {
+        super(tree.nodeFactory(), elements);
+        this.tree = tree;
+        this.start = start;
+        this.elements = elements;
+    }
+
+    /**
+     * @return a slice over the bytes this node has been read from, regardless of later modifications
+     */
+    public VPackSlice getVPack() {
+        return new VPackSlice(tree.data(), start);
+    }
+
+    /**
+     * @return whether this node or any of its descendants has been modified since it was read
+     */
+    public boolean isModified() {
+        return elements.modified();
+    }
+
+    /**
+     * Writes the bytes this node has been read from as they are to a {@link VPackGenerator}, unless modified.
+     */
+    @Override
+    public void serialize(final JsonGenerator g, final SerializerProvider provider) throws IOException {
+        if (LazyTree.writableAsIs(g, provider) && !isModified()) {
+            ((VPackGenerator) g).writeVPack(getVPack());
+        } else {
+            super.serialize(g, provider);
+        }
+    }
+
+    private static final class Elements extends AbstractList<JsonNode> {
+        private final LazyTree tree;
+        private final int start;
+        /**
+         * Elements accessed so far, by index. Elements of compact Arrays are all decoded at once. Once modified,
+         * all the elements as decoded.
+         */
+        private final JsonNode[] decoded;
+        /**
+         * All the elements, once modified.
+         */
+        private List<JsonNode> elements;
+
+        Elements(final LazyTree tree, final int start) {
+            this.tree = tree;
+            this.start = start;
+            decoded = new JsonNode[tree.memberCount(start)];
+        }
+
+        private List<JsonNode> elements() {
+            if (elements == null) {
+                tree.elements(start, decoded);
+                elements = new ArrayList<>(Arrays.asList(decoded));
+            }
+            return elements;
+        }
+
+        boolean modified() {
+            if (elements != null && elements.size() != decoded.length) {
+                return true;
+            }
+            for (int i = 0; i < decoded.length; i++) {
+                final JsonNode node = decoded[i];
+                if ((elements != null && elements.get(i) != node) || LazyTree.modified(node)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public JsonNode get(final int index) {
+            if (elements != null) {
+                return elements.get(index);
+            } else if (index < 0 || index >= decoded.length) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + decoded.length);
+            }
+            JsonNode node = decoded[index];
+            if (node == null) {
+                if (tree.compact(start)) {
+                    tree.elements(start, decoded);
+                    node = decoded[index];
+                } else {
+                    node = tree.element(start, index);
+                    decoded[index] = node;
+                }
+            }
+            return node;
+        }
+
+        @Override
+        public int size() {
+            return elements != null ? elements.size() : decoded.length;
+        }
+
+        @Override
+        public JsonNode set(final int index, final JsonNode element) {
+            return elements().set(index, element);
+        }
+
+        @Override
+        public void add(final int index, final JsonNode element) {
+            modCount++;
+            elements().add(index, element);
+        }
+
+        @Override
+        public JsonNode remove(final int index) {
+            modCount++;
+            return elements().remove(index);
+        }
+    }
+
+}
@@ -0,0 +1,198 @@
+package com.arangodb.jackson.dataformat.velocypack.internal;
+
+import com.arangodb.velocypack.VPackSlice;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * {@link ObjectNode} of a {@link LazyTree}: members looked up by name are decoded one at a time, any other
+ * access decodes all of them once.
+ */
+// deepCopy() of ObjectNode overrides the generic one of JsonNode
+@SuppressWarnings("unchecked")
+public class LazyObjectNode extends ObjectNode {
+
+    private static final long serialVersionUID = 1L;
+
+    private final LazyTree tree;
+    private final int start;
+    private final Members members;
+
+    LazyObjectNode(final LazyTree tree, final int start) {
+        this(tree, start, new Members(tree, start));
+    }
+
+    private LazyObjectNode(final LazyTree tree, final int start, final Members members) {
+        super(tree.nodeFactory(), members);
+        this.tree = tree;
+        this.start = start;
+        this.members = members;
+    }
+
+    /**
+     * @return a slice over the bytes this node has been read from, regardless of later modifications
+     */
+    public VPackSlice getVPack() {
+        return new VPackSlice(tree.data(), start);
+    }
+
+    /**
+     * @return whether this node or any of its descendants has been modified since it was read
+     */
+    public boolean isModified() {
+        return members.modified();
+    }
+
+    /**
+     * Writes the bytes this node has been read from as they are to a {@link VPackGenerator}, unless modified.
+     */
+    @Override
+    public void serialize(final JsonGenerator g, final SerializerProvider provider) throws IOException {
+        if (LazyTree.writableAsIs(g, provider) && !isModified()) {
+            ((VPackGenerator) g).writeVPack(getVPack());
+        } else {
+            super.serialize(g, provider);
+        }
+    }
+
+    private static final class Members extends AbstractMap<String, JsonNode> {
+        private final LazyTree tree;
+        private final int start;
+        /**
+         * Members looked up so far, {@code null} values for missing ones.
+         */
+        private Map<String, JsonNode> decoded = new HashMap<>();
+        /**
+         * All the members, once decoded.
+         */
+        private Map<String, JsonNode> members;
+        /**
+         * The members as decoded, to tell whether they have been modified since.
+         */
+        private String[] names;
+        private JsonNode[] values;
+
+        Members(final LazyTree tree, final int start) {
+            this.tree = tree;
+            this.start = start;
+        }
+
+        private Map<String, JsonNode> members() {
+            if (members == null) {
+                members = tree.members(start, decoded);
+                names = members.keySet().toArray(new String[0]);
+                values = members.values().toArray(new JsonNode[0]);
+                decoded = null;
+            }
+            return members;
+        }
+
+        boolean modified() {
+            if (members == null) {
+                for (final JsonNode node : decoded.values()) {
+                    if (LazyTree.modified(node)) {
+                        return true;
+                    }
+                }
+                return false;
+            } else if (members.size() != names.length) {
+                return true;
+            }
+            int i = 0;
+            for (final Entry<String, JsonNode> member : members.entrySet()) {
+                final JsonNode node = member.getValue();
+                if (!member.getKey().equals(names[i]) || node != values[i] || LazyTree.modified(node)) {
+                    return true;
+                }
+                i++;
+            }
+            return false;
+        }
+
+        @Override
+        public JsonNode get(final Object key) {
+            if (members != null) {
+                return members.get(key);
+            } else if (!(key instanceof String)) {
+                return null;
+            }
+            JsonNode node = decoded.get(key);
+            if (node == null && !decoded.containsKey(key)) {
+                node = tree.member(start, (String) key);
+                decoded.put((String) key, node);
+            }
+            return node;
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return members != null ? members.size() : tree.memberCount(start);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size() == 0;
+        }
+
+        @Override
+        public JsonNode put(final String key, final JsonNode value) {
+            return members().put(key, value);
+        }
+
+        @Override
+        public JsonNode remove(final Object key) {
+            return members().remove(key);
+        }
+
+        @Override
+        public void putAll(final Map<? extends String, ? extends JsonNode> m) {
+            members().putAll(m);
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return members().keySet();
+        }
+
+        @Override
+        public Collection<JsonNode> values() {
+            return members().values();
+        }
+
+        @Override
+        public Set<Entry<String, JsonNode>> entrySet() {
+            return members().entrySet();
+        }
+
+        @Override
+        public void forEach(final BiConsumer<? super String, ? super JsonNode> action) {
+            members().forEach(action);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return members().equals(o);
+        }
+
+        @Override
+        public int hashCode() {
+            return members().hashCode();
+        }
+    }
+
+}
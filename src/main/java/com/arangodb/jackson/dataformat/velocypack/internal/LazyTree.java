@@ -0,0 +1,274 @@
+package com.arangodb.jackson.dataformat.velocypack.internal;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.node.ContainerNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * VelocyPack value read as a tree of {@link LazyObjectNode} and {@link LazyArrayNode}, whose members are
+ * decoded from the underlying bytes only when accessed: Object members are looked up by name through the
+ * sorted index tables and Array elements by index, without decoding their siblings. Decoding moves a
+ * single cursor over the bytes, so a tree is not thread-safe, not even for reading.
+ */
+public final class LazyTree {
+
+    /**
+     * {@code SerializerProvider.isEnabled(DatatypeFeature)} and the {@code JsonNodeFeature}s changing how
+     * Objects are written, {@code null} if not available in the Jackson version in use.
+     */
+    private static final Method IS_ENABLED;
+    private static final Object WRITE_NULL_PROPERTIES;
+    private static final Object WRITE_PROPERTIES_SORTED;
+
+    static {
+        Method isEnabled = null;
+        Object writeNullProperties = null;
+        Object writePropertiesSorted = null;
+        try {
+            final Class<?> nodeFeature = Class.forName("com.fasterxml.jackson.databind.cfg.JsonNodeFeature");
+            isEnabled = SerializerProvider.class.getMethod("isEnabled",
+                    Class.forName("com.fasterxml.jackson.databind.cfg.DatatypeFeature"));
+            for (final Object feature : nodeFeature.getEnumConstants()) {
+                if ("WRITE_NULL_PROPERTIES".equals(feature.toString())) {
+                    writeNullProperties = feature;
+                } else if ("WRITE_PROPERTIES_SORTED".equals(feature.toString())) {
+                    writePropertiesSorted = feature;
+                }
+            }
+        } catch (final ClassNotFoundException | NoSuchMethodException e) {
+            // before Jackson 2.14
+        }
+        IS_ENABLED = isEnabled;
+        WRITE_NULL_PROPERTIES = writeNullProperties;
+        WRITE_PROPERTIES_SORTED = writePropertiesSorted;
+    }
+
+    /**
+     * Parser over the bytes of the tree, only moved through {@link VPackParser#restart(int, int)}. It never
+     * reads past the end of a value, so it is never closed and does not take buffers from its context.
+     */
+    private final VPackParser cursor;
+    private final JsonNodeFactory nodeFactory;
+    private final int features;
+
+    private LazyTree(final VPackParser cursor, final JsonNodeFactory nodeFactory, final int features) {
+        this.cursor = cursor;
+        this.nodeFactory = nodeFactory;
+        this.features = features;
+    }
+
+    /**
+     * Reads the Object or Array at the current {@link JsonToken#START_OBJECT} or {@link JsonToken#START_ARRAY}
+     * token of the given parser and skips its children. The returned tree shares the input of parsers reading
+     * from a byte array, which must not be modified as long as the tree is in use, other input is copied.
+     */
+    public static ContainerNode<?> read(final VPackParser p, final DeserializationContext ctxt) {
+        int start = p.currentStart;
+        int end = start + p.byteSize(start);
+        final byte[] data;
+        if (p.getClass() == VPackParser.class && p.inputStream == null && !p.bufferRecyclable) {
+            data = p.inputBuffer;
+        } else {
+            data = p.copyRange(start, end);
+            end -= start;
+            start = 0;
+        }
+        final VPackParser cursor = new VPackParser(p.ioContext, p.getFeatureMask(), p.getCodec(), data, start, end,
+                false);
+        final LazyTree tree = new LazyTree(cursor, ctxt.getNodeFactory(), ctxt.getDeserializationFeatures());
+        p.skipChildren();
+        return (ContainerNode<?>) tree.value(start);
+    }
+
+    /**
+     * @return whether lazy nodes can be written to the given generator as the bytes they have been read from,
+     * i.e. to a {@link VPackGenerator} with no features changing the written content
+     */
+    @SuppressWarnings("deprecation")
+    static boolean writableAsIs(final JsonGenerator g, final SerializerProvider provider) {
+        if (!(g instanceof VPackGenerator)) {
+            return false;
+        } else if (provider == null) {
+            return true;
+        }
+        return provider.isEnabled(SerializationFeature.WRITE_EMPTY_JSON_ARRAYS)
+                && isEnabled(provider, WRITE_NULL_PROPERTIES, true)
+                && !isEnabled(provider, WRITE_PROPERTIES_SORTED, false);
+    }
+
+    private static boolean isEnabled(final SerializerProvider provider, final Object feature,
+                                     final boolean defaultState) {
+        if (IS_ENABLED == null || feature == null) {
+            return defaultState;
+        }
+        try {
+            return (Boolean) IS_ENABLED.invoke(provider, feature);
+        } catch (final IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return whether the given node of a lazy tree has been modified since it was read
+     */
+    static boolean modified(final JsonNode node) {
+        if (node instanceof LazyObjectNode) {
+            return ((LazyObjectNode) node).isModified();
+        } else if (node instanceof LazyArrayNode) {
+            return ((LazyArrayNode) node).isModified();
+        }
+        // scalar nodes are immutable
+        return false;
+    }
+
+    JsonNodeFactory nodeFactory() {
+        return nodeFactory;
+    }
+
+    byte[] data() {
+        return cursor.inputBuffer;
+    }
+
+    int memberCount(final int start) {
+        return cursor.memberCount(start, cursor.byteAt(start));
+    }
+
+    /**
+     * @return the value of the given attribute of the Object at the given offset, or {@code null}
+     */
+    JsonNode member(final int start, final String name) {
+        final int value = cursor.findAttribute(start, cursor.byteAt(start), name.getBytes(StandardCharsets.UTF_8));
+        return value >= 0 ? value(value) : null;
+    }
+
+    /**
+     * @return the element with the given index of the Array at the given offset, or {@code null}
+     */
+    JsonNode element(final int start, final int index) {
+        final int element = cursor.findElement(start, cursor.byteAt(start), index);
+        return element >= 0 ? value(element) : null;
+    }
+
+    /**
+     * Decodes all the members of the Object at the given offset, in the order of the data, reusing the
+     * already decoded ones.
+     */
+    Map<String, JsonNode> members(final int start, final Map<String, JsonNode> decoded) {
+        final Map<String, JsonNode> members = new LinkedHashMap<>();
+        try {
+            cursor.restart(start, start + cursor.byteSize(start));
+            cursor.nextToken();
+            while (cursor.nextToken() == JsonToken.FIELD_NAME) {
+                final String name = cursor.getCurrentName();
+                final JsonToken token = cursor.nextToken();
+                JsonNode node = decoded.get(name);
+                if (node == null) {
+                    node = current(token);
+                } else {
+                    cursor.skipChildren();
+                }
+                members.put(name, node);
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return members;
+    }
+
+    /**
+     * @return whether the elements of the Array at the given offset can only be found by walking through
+     * the previous ones
+     */
+    boolean compact(final int start) {
+        return cursor.byteAt(start) == 0x13;
+    }
+
+    /**
+     * Decodes the elements of the Array at the given offset that are not decoded yet.
+     */
+    void elements(final int start, final JsonNode[] decoded) {
+        try {
+            cursor.restart(start, start + cursor.byteSize(start));
+            cursor.nextToken();
+            JsonToken token;
+            for (int i = 0; (token = cursor.nextToken()) != JsonToken.END_ARRAY; i++) {
+                if (decoded[i] == null) {
+                    decoded[i] = current(token);
+                } else {
+                    cursor.skipChildren();
+                }
+            }
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private JsonNode value(final int start) {
+        cursor.restart(start, start + cursor.byteSize(start));
+        try {
+            return current(cursor.nextToken());
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Decodes the value at the given token of the cursor, as {@code JsonNodeDeserializer} does, Objects and
+     * Arrays into lazy nodes.
+     */
+    private JsonNode current(final JsonToken token) throws IOException {
+        switch (token) {
+            case START_OBJECT:
+                cursor.skipChildren();
+                return new LazyObjectNode(this, cursor.currentStart);
+            case START_ARRAY:
+                cursor.skipChildren();
+                return new LazyArrayNode(this, cursor.currentStart);
+            case VALUE_STRING:
+                return nodeFactory.textNode(cursor.getText());
+            case VALUE_NUMBER_INT:
+                if (DeserializationFeature.USE_BIG_INTEGER_FOR_INTS.enabledIn(features)) {
+                    return nodeFactory.numberNode(cursor.getBigIntegerValue());
+                } else if (DeserializationFeature.USE_LONG_FOR_INTS.enabledIn(features)) {
+                    return nodeFactory.numberNode(cursor.getLongValue());
+                }
+                switch (cursor.getNumberType()) {
+                    case INT:
+                        return nodeFactory.numberNode(cursor.getIntValue());
+                    case LONG:
+                        return nodeFactory.numberNode(cursor.getLongValue());
+                    default:
+                        return nodeFactory.numberNode(cursor.getBigIntegerValue());
+                }
+            case VALUE_NUMBER_FLOAT:
+                final double value = cursor.getDoubleValue();
+                if (DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS.enabledIn(features)
+                        && !Double.isNaN(value) && !Double.isInfinite(value)) {
+                    return nodeFactory.numberNode(cursor.getDecimalValue());
+                }
+                return nodeFactory.numberNode(value);
+            case VALUE_TRUE:
+                return nodeFactory.booleanNode(true);
+            case VALUE_FALSE:
+                return nodeFactory.booleanNode(false);
+            case VALUE_EMBEDDED_OBJECT:
+                return nodeFactory.binaryNode((byte[]) cursor.getEmbeddedObject());
+            default:
+                return nodeFactory.nullNode();
+        }
+    }
+
+}
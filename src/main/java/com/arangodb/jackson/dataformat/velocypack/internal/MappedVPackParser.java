@@ -0,0 +1,130 @@
+package com.arangodb.jackson.dataformat.velocypack.internal;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.io.IOContext;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * {@link VPackParser} reading a file of consecutive root values, as written by a dump, through memory
+ * mappings of the file. The file is mapped in segments, which allows files of any size: each root value
+ * is parsed in place within the current segment, a new segment is mapped from the start of the first
+ * root value that does not fit. Single root values are limited to 2GB.
+ * <p>
+ * At the end of each root value {@link #nextToken()} moves on to the next one, until the end of the file;
+ * {@link com.fasterxml.jackson.databind.ObjectReader#readValues(com.fasterxml.jackson.core.JsonParser)}
+ * can be used to iterate over them.
+ */
+public class MappedVPackParser extends ByteBufferVPackParser {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 1 << 30;
+
+    protected final FileChannel channel;
+    protected final long fileSize;
+    protected final int segmentSize;
+
+    /**
+     * Position in the file of the current segment.
+     */
+    protected long segmentPosition;
+
+    /**
+     * Flag that indicates whether the parser is positioned before a root value.
+     */
+    protected boolean atRoot;
+
+    public MappedVPackParser(IOContext ctxt, int parserFeatures, ObjectCodec codec, FileChannel channel,
+                             int segmentSize) throws IOException {
+        super(ctxt, parserFeatures, codec, map(channel, 0L, segmentSize));
+        this.channel = channel;
+        this.segmentSize = segmentSize;
+        fileSize = channel.size();
+        segmentPosition = 0L;
+        inputEnd = input.limit();
+        beforeFirstToken = false;
+        atRoot = true;
+    }
+
+    private static ByteBuffer map(final FileChannel channel, final long position, final int size)
+            throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(size, channel.size() - position));
+    }
+
+    @Override
+    public Object getInputSource() {
+        return channel;
+    }
+
+    @Override
+    public JsonLocation getTokenLocation() {
+        return new JsonLocation(ioContext.getSourceReference(), segmentPosition + currentStart, -1L, -1, -1);
+    }
+
+    @Override
+    public JsonLocation getCurrentLocation() {
+        final long end = closed || atRoot ? segmentPosition + rootEnd
+                : segmentPosition + currentStart + byteSize(currentStart);
+        return new JsonLocation(ioContext.getSourceReference(), end, -1L, -1, -1);
+    }
+
+    @Override
+    protected void closeInput() throws IOException {
+        if (ioContext.isResourceManaged() || isEnabled(JsonParser.Feature.AUTO_CLOSE_SOURCE)) {
+            channel.close();
+        }
+    }
+
+    @Override
+    public JsonToken nextToken() throws IOException {
+        if (closed) {
+            return null;
+        }
+        numberStart = -1;
+        textStart = -1;
+        if (!atRoot) {
+            final JsonToken token = _currToken != null ? _currToken : _lastClearedToken;
+            if (depth > 0 || token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                return super.nextToken();
+            }
+            currentStart = rootEnd;
+            atRoot = true;
+        }
+        if (segmentPosition + currentStart >= fileSize) {
+            close();
+            return _currToken = null;
+        }
+        int end = requiredEnd(currentStart);
+        if (end > inputEnd || end < 0) {
+            remap(segmentPosition + currentStart, segmentSize);
+            while ((end = requiredEnd(currentStart)) > inputEnd || end < 0) {
+                if (end < 0) {
+                    _reportError("Root value larger than 2GB at " + segmentPosition);
+                }
+                if (segmentPosition + inputEnd == fileSize) {
+                    _reportInvalidEOF(": truncated VelocyPack value", null);
+                }
+                remap(segmentPosition, end);
+            }
+        }
+        atRoot = false;
+        rootEnd = end;
+        rootIndex++;
+        return _currToken = getToken(currentStart);
+    }
+
+    /**
+     * Maps a new segment of at least the given size, if available, from the given position of the file.
+     */
+    private void remap(final long position, final int size) throws IOException {
+        input = map(channel, position, Math.max(size, segmentSize));
+        segmentPosition = position;
+        currentStart = 0;
+        inputEnd = input.limit();
+    }
+
+}
@@ -0,0 +1,177 @@
+package com.arangodb.jackson.dataformat.velocypack.internal;
+
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.core.async.NonBlockingInputFeeder;
+import com.fasterxml.jackson.core.io.IOContext;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Non-blocking {@link VPackParser}: input is pushed through {@link #feedInput(byte[], int, int)} and
+ * {@link JsonToken#NOT_AVAILABLE} is returned as long as the next root value is incomplete. Each root
+ * value is decoded once all of its bytes have arrived, since the index tables of Objects and Arrays
+ * are located at their end. A sequence of root values may be fed, until {@link #endOfInput()}.
+ * <p>
+ * Fed content is copied into the input buffer of the parser, so that the caller may reuse its own
+ * buffers right away.
+ */
+public class NonBlockingVPackParser extends VPackParser implements ByteArrayFeeder {
+
+    /**
+     * Flag that indicates whether the parser is positioned between root values, waiting for the
+     * next one to be complete.
+     */
+    protected boolean awaitingRoot;
+
+    /**
+     * Flag that indicates whether {@link #endOfInput()} has been called.
+     */
+    protected boolean endOfInput;
+
+    public NonBlockingVPackParser(IOContext ctxt, int parserFeatures, ObjectCodec codec) {
+        super(ctxt, parserFeatures, codec, ctxt.allocReadIOBuffer(), 0, true);
+        inputEnd = 0;
+        beforeFirstToken = false;
+        awaitingRoot = true;
+    }
+
+    /**
+     * Not supported: only parsers reading byte arrays can be reset.
+     */
+    @Override
+    public void reset(IOContext ctxt, int parserFeatures, ObjectCodec codec, byte[] inputBuffer, int start,
+                      int end) {
+        throw new UnsupportedOperationException("reset is not supported by " + getClass().getSimpleName());
+    }
+
+    /*
+    /**********************************************************
+    /* Abstract impls
+    /**********************************************************
+     */
+
+    @Override
+    public boolean canParseAsync() {
+        return true;
+    }
+
+    @Override
+    public NonBlockingInputFeeder getNonBlockingInputFeeder() {
+        return this;
+    }
+
+    @Override
+    public JsonLocation getCurrentLocation() {
+        if (awaitingRoot && !closed) {
+            return new JsonLocation(ioContext.getSourceReference(), currentStart, -1L, -1, -1);
+        }
+        return super.getCurrentLocation();
+    }
+
+    /*
+    /**********************************************************
+    /* ByteArrayFeeder impl
+    /**********************************************************
+     */
+
+    @Override
+    public boolean needMoreInput() {
+        return !endOfInput && !closed && requiredEnd(awaitingRoot ? currentStart : rootEnd) > inputEnd;
+    }
+
+    @Override
+    public void feedInput(byte[] data, int offset, int end) throws IOException {
+        if (end < offset) {
+            _reportError("Input end (" + end + ") may not be before start (" + offset + ")");
+        }
+        final int len = end - offset;
+        ensureCapacity(len);
+        System.arraycopy(data, offset, inputBuffer, inputEnd, len);
+        inputEnd += len;
+    }
+
+    /**
+     * Same as {@link #feedInput(byte[], int, int)}, for the remaining content of the given buffer.
+     */
+    public void feedInput(ByteBuffer data) throws IOException {
+        final int len = data.remaining();
+        ensureCapacity(len);
+        data.get(inputBuffer, inputEnd, len);
+        inputEnd += len;
+    }
+
+    @Override
+    public void endOfInput() {
+        endOfInput = true;
+    }
+
+    /**
+     * Makes room for the given number of bytes at {@link #inputEnd}. Consumed root values are dropped
+     * first, while the parser is between root values.
+     */
+    private void ensureCapacity(final int len) throws IOException {
+        if (endOfInput) {
+            _reportError("Already closed, can not feed more input");
+        }
+        if (closed) {
+            _reportError("Parser is closed, can not feed more input");
+        }
+        if (awaitingRoot && currentStart > 0) {
+            final int remaining = inputEnd - currentStart;
+            System.arraycopy(inputBuffer, currentStart, inputBuffer, 0, remaining);
+            inputEnd = remaining;
+            currentStart = 0;
+        }
+        final int required = inputEnd + len;
+        if (required < 0) {
+            _reportError("Input of more than 2GB buffered, can not feed more input");
+        }
+        while (inputBuffer.length < required) {
+            growBuffer(required);
+        }
+    }
+
+    /*
+    /**********************************************************
+    /* JsonParser impl
+    /**********************************************************
+     */
+
+    @Override
+    public JsonToken nextToken() throws IOException {
+        if (closed) {
+            return null;
+        }
+        numberStart = -1;
+        textStart = -1;
+        if (!awaitingRoot) {
+            final JsonToken token = _currToken != null ? _currToken : _lastClearedToken;
+            if (depth > 0 || token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+                // the whole root value is available
+                return super.nextToken();
+            }
+            currentStart = rootEnd;
+            awaitingRoot = true;
+        }
+        final int end = requiredEnd(currentStart);
+        if (end > inputEnd) {
+            if (!endOfInput) {
+                return _currToken = JsonToken.NOT_AVAILABLE;
+            }
+            if (inputEnd > currentStart) {
+                _reportInvalidEOF(": truncated VelocyPack value", null);
+            }
+            close();
+            return _currToken = null;
+        }
+        awaitingRoot = false;
+        rootEnd = end;
+        rootIndex++;
+        return _currToken = getToken(currentStart);
+    }
+
+}
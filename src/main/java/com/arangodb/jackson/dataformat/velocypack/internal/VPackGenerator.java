@@ -1,69 +1,155 @@
 package com.arangodb.jackson.dataformat.velocypack.internal;
 
-import com.arangodb.velocypack.VPackBuilder;
 import com.arangodb.velocypack.VPackSlice;
-import com.arangodb.velocypack.ValueType;
-import com.arangodb.velocypack.exception.VPackBuilderException;
+import com.arangodb.velocypack.VPackStringSlice;
 import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.ObjectCodec;
 import com.fasterxml.jackson.core.SerializableString;
 import com.fasterxml.jackson.core.Version;
 import com.fasterxml.jackson.core.base.GeneratorBase;
 import com.fasterxml.jackson.core.io.IOContext;
+import com.fasterxml.jackson.core.json.DupDetector;
+import com.fasterxml.jackson.core.json.JsonWriteContext;
 import com.fasterxml.jackson.core.json.PackageVersion;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
 
 /**
+ * Generator encoding VelocyPack directly into a write buffer obtained from the {@link IOContext}, with the
+ * same layout as {@link com.arangodb.velocypack.VPackBuilder}. Objects and Arrays reserve their header when
+ * started; header, index table and byte length are patched in when they are closed. Since these refer to
+ * the whole compound value, the window kept in the buffer is the root value currently being written: each
+ * root value is written to the output as soon as it is complete, and the buffer is reused for the next one.
+ *
  * @author Mark Vollmary
  * @author Michele Rastelli
- * TODO: allocate buffers inside VPackBuilder using ioCtxt
  */
 public class VPackGenerator extends GeneratorBase {
 
-    protected final VPackBuilder builder;
+    private static final int INITIAL_STACK_SIZE = 16;
+
     protected String attribute;
-    protected final IOContext ioContext;
-    protected final OutputStream out;
+
+    /**
+     * Pre-encoded form of {@link #attribute}, if given as {@link SerializableString}.
+     */
+    protected SerializableString serializedAttribute;
+
+    /**
+     * Number of open Objects and Arrays.
+     */
+    protected int depth;
+
+    /**
+     * Whether any root value has been written to {@link #out}.
+     */
+    protected boolean rootWritten;
+    protected IOContext ioContext;
+    protected OutputStream out;
+
+    /**
+     * Encoding buffer, holding the root value being written.
+     */
+    protected byte[] buffer;
+
+    /**
+     * Offset in {@link #buffer} of the next byte to write.
+     */
+    protected int position;
+
+    /**
+     * Whether {@link #buffer} has been allocated by {@link #ioContext} and has to be given back to it.
+     */
+    protected boolean bufferRecyclable;
+
+    /**
+     * Offsets in {@link #buffer} of the open Objects and Arrays.
+     */
+    private int[] compoundStarts;
+
+    /**
+     * For each open Object or Array, the index in {@link #members} of its first member.
+     */
+    private int[] firstMembers;
+
+    /**
+     * Offsets of the members of the open Objects and Arrays, relative to the start of their parent.
+     */
+    private int[] members;
+    private int memberCount;
 
     public VPackGenerator(IOContext ioCtxt, int streamWriteFeatures, ObjectCodec codec, OutputStream out) {
         super(streamWriteFeatures, codec);
         ioContext = ioCtxt;
         this.out = out;
-        builder = new VPackBuilder();
+        buffer = ioCtxt.allocWriteEncodingBuffer();
+        bufferRecyclable = true;
+        compoundStarts = new int[INITIAL_STACK_SIZE];
+        firstMembers = new int[INITIAL_STACK_SIZE];
+        members = new int[INITIAL_STACK_SIZE];
         attribute = null;
     }
 
+    /**
+     * Resets this generator to write to the given output, as if it had just been created with the given
+     * arguments, so that the instance can be reused. The generator is closed first, if still open.
+     *
+     * @see com.arangodb.jackson.dataformat.velocypack.VPackFactory#resetGenerator(VPackGenerator, OutputStream)
+     */
+    public void reset(IOContext ioCtxt, int streamWriteFeatures, ObjectCodec codec, OutputStream out)
+            throws IOException {
+        close();
+        ioContext = ioCtxt;
+        this.out = out;
+        _features = streamWriteFeatures;
+        _cfgNumbersAsStrings = Feature.WRITE_NUMBERS_AS_STRINGS.enabledIn(streamWriteFeatures);
+        _objectCodec = codec;
+        _cfgPrettyPrinter = null;
+        _writeContext = JsonWriteContext.createRootContext(Feature.STRICT_DUPLICATE_DETECTION.enabledIn(
+                streamWriteFeatures) ? DupDetector.rootDetector(this) : null);
+        _closed = false;
+        buffer = ioCtxt.allocWriteEncodingBuffer();
+        bufferRecyclable = true;
+        position = 0;
+        depth = 0;
+        memberCount = 0;
+        rootWritten = false;
+        attribute = null;
+        serializedAttribute = null;
+    }
+
     @Override
     public void writeStartObject() throws IOException {
-        try {
-            builder.add(attribute, ValueType.OBJECT);
-            attribute = null;
-        } catch (final VPackBuilderException e) {
-            throw new IOException(e);
-        }
+        startCompound((byte) 0x0b);
     }
 
     @Override
     public void writeEndObject() throws IOException {
-        try {
-            builder.close();
-        } catch (final VPackBuilderException e) {
-            throw new IOException(e);
-        }
+        endCompound();
     }
 
     @Override
     public void writeFieldName(String s) throws IOException {
         attribute = s;
+        serializedAttribute = null;
     }
 
+    /**
+     * The UTF-8 encoded name cached by the given {@link SerializableString} is copied to the output as it is.
+     */
     @Override
     public void writeFieldName(SerializableString serializableString) throws IOException {
         attribute = serializableString.getValue();
+        serializedAttribute = serializableString;
     }
 
     @Override
@@ -73,42 +159,41 @@ public class VPackGenerator extends GeneratorBase {
 
     @Override
     public void writeString(String s) throws IOException {
-        try {
-            builder.add(attribute, s);
-            attribute = null;
-        } catch (final VPackBuilderException e) {
-            throw new IOException(e);
+        if (s == null) {
+            writeNull();
+            return;
         }
+        beforeValue();
+        appendString(s);
+        valueWritten();
     }
 
+    /**
+     * Encodes the given chars to UTF-8 directly into the output, without creating a {@link String}.
+     */
     @Override
     public void writeString(char[] chars, int i, int i1) throws IOException {
-        try {
-            builder.add(attribute, new String(chars, i, i1));
-            attribute = null;
-        } catch (final VPackBuilderException e) {
-            throw new IOException(e);
-        }
+        beforeValue();
+        appendString(chars, i, i1);
+        valueWritten();
     }
 
+    /**
+     * Same as {@link #writeUTF8String(byte[], int, int)}, VelocyPack Strings are never escaped.
+     */
     @Override
     public void writeRawUTF8String(byte[] bytes, int i, int i1) throws IOException {
-        try {
-            builder.add(attribute, new String(bytes, i, i1));
-            attribute = null;
-        } catch (final VPackBuilderException e) {
-            throw new IOException(e);
-        }
+        writeUTF8String(bytes, i, i1);
     }
 
+    /**
+     * Writes the given UTF-8 encoded bytes as they are, without decoding them.
+     */
     @Override
     public void writeUTF8String(byte[] bytes, int i, int i1) throws IOException {
-        try {
-            builder.add(attribute, new String(bytes, i, i1));
-            attribute = null;
-        } catch (final VPackBuilderException e) {
-            throw new IOException(e);
-        }
+        beforeValue();
+        appendString(bytes, i, i1);
+        valueWritten();
     }
 
     @Override
@@ -133,93 +218,151 @@ public class VPackGenerator extends GeneratorBase {
 
     @Override
     public void writeRawValue(SerializableString text) throws IOException {
-        try {
-            builder.add(attribute, new VPackSlice(text.asUnquotedUTF8()));
-            attribute = null;
-        } catch (final VPackBuilderException e) {
-            throw new IOException(e);
-        }
+        writeVPack(new VPackSlice(text.asUnquotedUTF8()));
     }
 
     @Override
     public void writeBinary(Base64Variant base64Variant, byte[] bytes, int offset, int len) throws IOException {
-        byte[] data = new byte[len];
-        System.arraycopy(bytes, offset, data, 0, len);
-        try {
-            builder.add(attribute, data);
-            attribute = null;
-        } catch (final VPackBuilderException e) {
-            throw new IOException(e);
+        if (bytes == null) {
+            writeNull();
+            return;
+        }
+        beforeValue();
+        ensureCapacity(5 + len);
+        buffer[position++] = (byte) 0xc3;
+        appendLittleEndian(len, 4);
+        System.arraycopy(bytes, offset, buffer, position, len);
+        position += len;
+        valueWritten();
+    }
+
+    /**
+     * Reads the given number of bytes, or all the remaining ones if negative, from the given stream straight
+     * into the encoding buffer as a BINARY value.
+     */
+    @Override
+    public int writeBinary(Base64Variant base64Variant, InputStream data, int dataLength) throws IOException {
+        beforeValue();
+        final int start = position;
+        ensureCapacity(5 + Math.max(dataLength, 0));
+        buffer[position] = (byte) 0xc3;
+        position += 5;
+        int length = 0;
+        if (dataLength >= 0) {
+            while (length < dataLength) {
+                final int n = data.read(buffer, position, dataLength - length);
+                if (n < 0) {
+                    _reportError("Too few bytes available: missing " + (dataLength - length)
+                            + " bytes (out of " + dataLength + ")");
+                }
+                position += n;
+                length += n;
+            }
+        } else {
+            int n;
+            do {
+                if (position == buffer.length) {
+                    ensureCapacity(1);
+                }
+                n = data.read(buffer, position, buffer.length - position);
+                if (n > 0) {
+                    position += n;
+                    length += n;
+                }
+            } while (n >= 0);
         }
+        storeLittleEndian(start + 1, length, 4);
+        valueWritten();
+        return length;
     }
 
     public void writeVPack(final VPackSlice vpack) throws IOException {
-        try {
-            builder.add(attribute, vpack);
-            attribute = null;
-        } catch (final VPackBuilderException e) {
-            throw new IOException(e);
+        if (vpack == null) {
+            writeNull();
+            return;
         }
+        beforeValue();
+        appendBytes(vpack.getBuffer(), vpack.getStart(), vpack.getByteSize());
+        valueWritten();
+    }
+
+    /**
+     * Copies the current value of a {@link VPackParser} as a single block of bytes, preceded by its field name
+     * if positioned on it, and skips its children. Other parsers are copied token by token.
+     */
+    @Override
+    public void copyCurrentStructure(final JsonParser p) throws IOException {
+        if (p instanceof VPackParser) {
+            JsonToken token = p.currentToken();
+            if (token == JsonToken.FIELD_NAME) {
+                writeFieldName(p.currentName());
+                token = p.nextToken();
+            }
+            if (token != null && (token.isStructStart() || token.isScalarValue()) && !((VPackParser) p).projected()) {
+                writeVPack(((VPackParser) p).getVPack());
+                p.skipChildren();
+                return;
+            }
+        }
+        super.copyCurrentStructure(p);
     }
 
     @Override
     public void writeNumber(int i) throws IOException {
-        try {
-            builder.add(attribute, i);
-            attribute = null;
-        } catch (final VPackBuilderException e) {
-            throw new IOException(e);
+        beforeValue();
+        if (i <= 9 && i >= -6) {
+            appendSmallInt(i);
+        } else {
+            ensureCapacity(5);
+            buffer[position++] = 0x23;
+            appendLittleEndian(i, 4);
         }
+        valueWritten();
     }
 
     @Override
     public void writeNumber(long l) throws IOException {
-        try {
-            builder.add(attribute, l);
-            attribute = null;
-        } catch (final VPackBuilderException e) {
-            throw new IOException(e);
+        beforeValue();
+        if (l <= 9 && l >= -6) {
+            appendSmallInt((int) l);
+        } else {
+            ensureCapacity(9);
+            buffer[position++] = 0x27;
+            appendLittleEndian(l, 8);
         }
+        valueWritten();
     }
 
     @Override
     public void writeNumber(BigInteger bigInteger) throws IOException {
-        try {
-            builder.add(attribute, bigInteger);
-            attribute = null;
-        } catch (final VPackBuilderException e) {
-            throw new IOException(e);
+        if (bigInteger == null) {
+            writeNull();
+            return;
         }
+        writeString(bigInteger.toString());
     }
 
     @Override
     public void writeNumber(double v) throws IOException {
-        try {
-            builder.add(attribute, v);
-            attribute = null;
-        } catch (final VPackBuilderException e) {
-            throw new IOException(e);
-        }
+        beforeValue();
+        ensureCapacity(9);
+        buffer[position++] = 0x1b;
+        appendLittleEndian(Double.doubleToRawLongBits(v), 8);
+        valueWritten();
     }
 
     @Override
     public void writeNumber(float v) throws IOException {
-        try {
-            builder.add(attribute, v);
-            attribute = null;
-        } catch (final VPackBuilderException e) {
-            throw new IOException(e);
-        }
+        writeNumber((double) v);
     }
 
     @Override
     public void writeNumber(BigDecimal bigDecimal) throws IOException {
-        try {
-            builder.add(attribute, bigDecimal);
-            attribute = null;
-        } catch (final VPackBuilderException e) {
-            throw new IOException(e);
+        if (bigDecimal == null) {
+            writeNull();
+            return;
         }
+        writeString(bigDecimal.toString());
     }
 
     @Override
@@ -234,52 +377,82 @@ public class VPackGenerator extends GeneratorBase {
 
     @Override
     public void writeBoolean(boolean b) throws IOException {
-        try {
-            builder.add(attribute, b);
-            attribute = null;
-        } catch (final VPackBuilderException e) {
-            throw new IOException(e);
-        }
+        beforeValue();
+        ensureCapacity(1);
+        buffer[position++] = (byte) (b ? 0x1a : 0x19);
+        valueWritten();
     }
 
     @Override
     public void writeNull() throws IOException {
-        try {
-            builder.add(attribute, ValueType.NULL);
-            attribute = null;
-        } catch (final VPackBuilderException e) {
-            throw new IOException(e);
-        }
+        beforeValue();
+        ensureCapacity(1);
+        buffer[position++] = 0x18;
+        valueWritten();
     }
 
     @Override
     public void writeStartArray() throws IOException {
-        try {
-            builder.add(attribute, ValueType.ARRAY);
-            attribute = null;
-        } catch (final VPackBuilderException e) {
-            throw new IOException(e);
-        }
+        startCompound((byte) 0x06);
     }
 
     @Override
     public void writeEndArray() throws IOException {
-        try {
-            builder.close();
-        } catch (final VPackBuilderException e) {
-            throw new IOException(e);
+        endCompound();
+    }
+
+    /**
+     * Called after each value: a completed root value is written to the output right away, so that
+     * consecutive root values are emitted one after the other.
+     */
+    private void valueWritten() throws IOException {
+        attribute = null;
+        serializedAttribute = null;
+        if (depth == 0) {
+            out.write(buffer, 0, position);
+            position = 0;
+            rootWritten = true;
         }
     }
 
+    /**
+     * Closes the Objects and Arrays still open if {@link Feature#AUTO_CLOSE_JSON_CONTENT} is
+     * enabled, otherwise reports them as an error, without writing the incomplete root value.
+     */
     @Override
     public void close() throws IOException {
-        out.write(builder.slice().toByteArray());
-        super.close();
+        if (!isClosed()) {
+            try {
+                if (depth > 0) {
+                    if (!isEnabled(Feature.AUTO_CLOSE_JSON_CONTENT)) {
+                        _reportError("Closing generator with " + depth + " open Object(s) or Array(s)");
+                    }
+                    attribute = null;
+                    serializedAttribute = null;
+                    while (depth > 0) {
+                        endCompound();
+                    }
+                } else if (!rootWritten) {
+                    // empty content is encoded as a None value
+                    out.write(0);
+                }
+            } finally {
+                super.close();
+                _releaseBuffers();
+                IOContextUtil.close(ioContext);
+            }
+        }
     }
 
     @Override
     protected void _releaseBuffers() {
-
+        final byte[] buf = buffer;
+        if (buf != null) {
+            buffer = null;
+            if (bufferRecyclable) {
+                ioContext.releaseWriteEncodingBuffer(buf);
+            }
+        }
     }
 
     @Override
@@ -287,6 +460,396 @@ public class VPackGenerator extends GeneratorBase {
 
     }
 
+    /*
+    /**********************************************************************
+    /* Encoding
+    /**********************************************************************
+     */
+
+    /**
+     * Writes the pending field name, if any, and registers the value about to be written as a member of the
+     * enclosing Object or Array.
+     */
+    private void beforeValue() throws IOException {
+        if (buffer == null) {
+            _reportError("Generator is closed");
+        }
+        if (depth > 0) {
+            final int start = compoundStarts[depth - 1];
+            if (attribute != null && buffer[start] != 0x0b) {
+                _reportError("Can not write a field name (" + attribute + ") outside of an Object");
+            }
+            addMember(position - start);
+            if (attribute != null) {
+                appendKey();
+            }
+        }
+    }
+
+    private void addMember(final int offset) {
+        if (memberCount == members.length) {
+            members = Arrays.copyOf(members, memberCount << 1);
+        }
+        members[memberCount++] = offset;
+    }
+
+    private void startCompound(final byte head) throws IOException {
+        beforeValue();
+        if (depth == compoundStarts.length) {
+            compoundStarts = Arrays.copyOf(compoundStarts, depth << 1);
+            firstMembers = Arrays.copyOf(firstMembers, depth << 1);
+        }
+        compoundStarts[depth] = position;
+        firstMembers[depth] = memberCount;
+        depth++;
+        // head byte, followed by room for byte length and number of members
+        ensureCapacity(9);
+        buffer[position] = head;
+        Arrays.fill(buffer, position + 1, position + 9, (byte) 0);
+        position += 9;
+    }
+
+    private void endCompound() throws IOException {
+        if (depth == 0) {
+            _reportError("Not in an Object or Array");
+        }
+        depth--;
+        final int tos = compoundStarts[depth];
+        final int first = firstMembers[depth];
+        final int n = memberCount - first;
+        final boolean isArray = buffer[tos] == 0x06;
+        if (n == 0) {
+            buffer[tos] = (byte) (isArray ? 0x01 : 0x0a);
+            position = tos + 1;
+        } else if (isArray) {
+            closeArray(tos, first, n);
+        } else if (n > 1 || !closeCompactObject(tos, n)) {
+            closeObject(tos, first, n);
+        }
+        memberCount = first;
+        valueWritten();
+    }
+
+    /**
+     * Closes an Object with a single member in the compact format, as {@link com.arangodb.velocypack.VPackBuilder}
+     * does.
+     *
+     * @return false if the Object is too large for the compact format
+     */
+    private boolean closeCompactObject(final int tos, final int n) {
+        final int nLen = variableLengthSize(n);
+        long byteSize = position - (tos + 8) + nLen;
+        int bLen = variableLengthSize(byteSize);
+        byteSize += bLen;
+        if (variableLengthSize(byteSize) != bLen) {
+            byteSize += 1;
+            bLen += 1;
+        }
+        if (bLen >= 9) {
+            return false;
+        }
+        buffer[tos] = 0x14;
+        moveDown(tos, 1 + bLen);
+        int i = tos;
+        long val = byteSize;
+        while (val >= 0x80) {
+            buffer[++i] = (byte) (val & 0x7f | 0x80);
+            val >>= 7;
+        }
+        buffer[++i] = (byte) (val & 0x7f);
+        ensureCapacity(nLen);
+        i = (int) (tos + byteSize);
+        val = n;
+        while (val >= 0x80) {
+            buffer[--i] = (byte) (val & 0x7f | 0x80);
+            val >>= 7;
+        }
+        buffer[--i] = (byte) (val & 0x7f);
+        position += nLen;
+        return true;
+    }
+
+    private void closeArray(final int tos, final int first, final int n) {
+        buffer[tos] = 0x06;
+        boolean needIndexTable = true;
+        if (n == 1) {
+            needIndexTable = false;
+        } else if (position - tos - members[first] == n * (members[first + 1] - members[first])) {
+            // all members may have the same size, in which case no index table is needed
+            final int subLen = members[first + 1] - members[first];
+            boolean noTable = position - tos - members[first + n - 1] == subLen;
+            for (int i = first + 1; noTable && i < first + n - 1; i++) {
+                noTable = members[i + 1] - members[i] == subLen;
+            }
+            needIndexTable = !noTable;
+        }
+
+        final int offsetSize;
+        if (position - tos + (needIndexTable ? n : 0) - (needIndexTable ? 6 : 7) <= 0xff) {
+            offsetSize = 1;
+        } else if (position - tos + (needIndexTable ? 2 * n : 0) <= 0xffff) {
+            offsetSize = 2;
+        } else {
+            offsetSize = 4;
+        }
+        if (offsetSize == 1) {
+            final int targetPos = needIndexTable ? 3 : 2;
+            if (position - 1 > tos + 9) {
+                moveDown(tos, targetPos);
+            }
+            if (needIndexTable) {
+                shiftMembers(first, n, 9 - targetPos);
+            }
+        }
+        if (needIndexTable) {
+            appendIndexTable(first, n, offsetSize);
+        } else {
+            buffer[tos] = 0x02;
+        }
+        finishHeader(tos, offsetSize, needIndexTable ? n : -1);
+    }
+
+    private void closeObject(final int tos, final int first, final int n) {
+        buffer[tos] = 0x0b;
+        final int offsetSize;
+        if (position - tos + n - 6 <= 0xff) {
+            offsetSize = 1;
+        } else if (position - tos + 2 * n <= 0xffff) {
+            offsetSize = 2;
+        } else {
+            offsetSize = 4;
+        }
+        if (offsetSize == 1) {
+            if (position - 1 > tos + 9) {
+                moveDown(tos, 3);
+            }
+            shiftMembers(first, n, 6);
+        }
+        if (n >= 2) {
+            sortMembers(tos, first, n);
+        }
+        appendIndexTable(first, n, offsetSize);
+        finishHeader(tos, offsetSize, n);
+    }
+
+    /**
+     * Moves the members of the compound value at the given offset down to the given position relative to
+     * it, dropping the unused part of the reserved header.
+     */
+    private void moveDown(final int tos, final int targetPos) {
+        System.arraycopy(buffer, tos + 9, buffer, tos + targetPos, position - tos - 9);
+        position -= 9 - targetPos;
+    }
+
+    private void shiftMembers(final int first, final int n, final int diff) {
+        for (int i = first; i < first + n; i++) {
+            members[i] -= diff;
+        }
+    }
+
+    private void appendIndexTable(final int first, final int n, final int offsetSize) {
+        ensureCapacity(n * offsetSize);
+        for (int i = first; i < first + n; i++) {
+            appendLittleEndian(members[i], offsetSize);
+        }
+    }
+
+    /**
+     * Fixes the width in the head byte and writes byte length and number of members (unless negative) of the
+     * compound value at the given offset.
+     */
+    private void finishHeader(final int tos, final int offsetSize, final int n) {
+        if (offsetSize == 2) {
+            buffer[tos] += 1;
+        } else if (offsetSize == 4) {
+            buffer[tos] += 2;
+        }
+        storeLittleEndian(tos + 1, position - tos, offsetSize);
+        if (n >= 0) {
+            storeLittleEndian(tos + 1 + offsetSize, n, offsetSize);
+        }
+    }
+
+    /**
+     * Sorts the index table entries of an Object by key, comparing their UTF-8 bytes.
+     */
+    private void sortMembers(final int tos, final int first, final int n) {
+        final VPackStringSlice[] keys = new VPackStringSlice[n];
+        final Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = key(tos + members[first + i]);
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer o1, final Integer o2) {
+                return keys[o1].compareTo(keys[o2]);
+            }
+        });
+        final int[] offsets = Arrays.copyOfRange(members, first, first + n);
+        for (int i = 0; i < n; i++) {
+            members[first + i] = offsets[order[i]];
+        }
+    }
+
+    private VPackStringSlice key(final int offset) {
+        final VPackSlice key = new VPackSlice(buffer, offset);
+        if (key.isString()) {
+            return key.getAsStringSlice();
+        }
+        return VPackSlice.attributeTranslator.translate(key.getAsInt()).getAsStringSlice();
+    }
+
+    /**
+     * Appends the pending field name, or its translation if any.
+     */
+    private void appendKey() {
+        if (VPackSlice.attributeTranslator != null) {
+            final VPackSlice translated = VPackSlice.attributeTranslator.translate(attribute);
+            if (translated != null) {
+                appendBytes(translated.getBuffer(), translated.getStart(), translated.getByteSize());
+                attribute = null;
+                serializedAttribute = null;
+                return;
+            }
+        }
+        if (serializedAttribute != null) {
+            final byte[] bytes = serializedAttribute.asUnquotedUTF8();
+            appendString(bytes, 0, bytes.length);
+        } else {
+            appendString(attribute);
+        }
+        attribute = null;
+        serializedAttribute = null;
+    }
+
+    private void appendSmallInt(final int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) (value >= 0 ? value + 0x30 : value + 0x40);
+    }
+
+    private void appendString(final String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        appendString(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Appends a String from its UTF-8 encoded bytes.
+     */
+    private void appendString(final byte[] bytes, final int offset, final int length) {
+        if (length <= 126) {
+            ensureCapacity(1 + length);
+            buffer[position++] = (byte) (0x40 + length);
+        } else {
+            ensureCapacity(9 + length);
+            buffer[position++] = (byte) 0xbf;
+            appendLittleEndian(length, 8);
+        }
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+    }
+
+    /**
+     * Appends a String from its UTF-16 chars, encoded to UTF-8 directly into the buffer. As with
+     * {@link String#getBytes}, unpaired surrogates are replaced with {@code '?'}.
+     */
+    private void appendString(final char[] chars, final int offset, final int length) {
+        final int end = offset + length;
+        int utf8Length = 0;
+        for (int i = offset; i < end; i++) {
+            final char c = chars[i];
+            if (c < 0x80) {
+                utf8Length++;
+            } else if (c < 0x800) {
+                utf8Length += 2;
+            } else if (!Character.isSurrogate(c)) {
+                utf8Length += 3;
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(chars[i + 1])) {
+                utf8Length += 4;
+                i++;
+            } else {
+                utf8Length++;
+            }
+        }
+        if (utf8Length <= 126) {
+            ensureCapacity(1 + utf8Length);
+            buffer[position++] = (byte) (0x40 + utf8Length);
+        } else {
+            ensureCapacity(9 + utf8Length);
+            buffer[position++] = (byte) 0xbf;
+            appendLittleEndian(utf8Length, 8);
+        }
+        final byte[] buf = buffer;
+        int pos = position;
+        for (int i = offset; i < end; i++) {
+            final char c = chars[i];
+            if (c < 0x80) {
+                buf[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[pos++] = (byte) (0xc0 | (c >> 6));
+                buf[pos++] = (byte) (0x80 | (c & 0x3f));
+            } else if (!Character.isSurrogate(c)) {
+                buf[pos++] = (byte) (0xe0 | (c >> 12));
+                buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                buf[pos++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(chars[i + 1])) {
+                final int codePoint = Character.toCodePoint(c, chars[++i]);
+                buf[pos++] = (byte) (0xf0 | (codePoint >> 18));
+                buf[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                buf[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                buf[pos++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else {
+                buf[pos++] = '?';
+            }
+        }
+        position = pos;
+    }
+
+    private void appendBytes(final byte[] bytes, final int offset, final int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+    }
+
+    private void appendLittleEndian(final long value, final int length) {
+        storeLittleEndian(position, value, length);
+        position += length;
+    }
+
+    private void storeLittleEndian(final int offset, long value, final int length) {
+        for (int i = offset; i < offset + length; i++) {
+            buffer[i] = (byte) value;
+            value >>= 8;
+        }
+    }
+
+    private static int variableLengthSize(final long value) {
+        int len = 1;
+        for (long val = value; val >= 0x80; val >>= 7) {
+            ++len;
+        }
+        return len;
+    }
+
+    /**
+     * Makes room for the given number of bytes at {@link #position}. A recycled buffer is given back as soon
+     * as it is outgrown, large buffers are not kept by the recycler.
+     */
+    private void ensureCapacity(final int length) {
+        final int required = position + length;
+        if (required > buffer.length) {
+            if (required < 0) {
+                throw new IllegalStateException("Root value larger than 2GB");
+            }
+            final byte[] old = buffer;
+            buffer = Arrays.copyOf(old, Math.max(required, old.length + (old.length >> 1)));
+            if (bufferRecyclable) {
+                bufferRecyclable = false;
+                ioContext.releaseWriteEncodingBuffer(old);
+            }
+        }
+    }
+
     /*
     /**********************************************************************
     /* Versioned
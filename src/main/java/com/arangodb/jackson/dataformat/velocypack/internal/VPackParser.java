@@ -1,24 +1,167 @@
 package com.arangodb.jackson.dataformat.velocypack.internal;
 
+import com.arangodb.jackson.dataformat.velocypack.VPackSchema;
 import com.arangodb.velocypack.VPackSlice;
 import com.arangodb.velocypack.ValueType;
+import com.arangodb.velocypack.exception.VPackKeyTypeException;
+import com.arangodb.velocypack.internal.util.ObjectArrayUtil;
+import com.arangodb.velocypack.internal.util.ValueLengthUtil;
+import com.arangodb.velocypack.internal.util.ValueTypeUtil;
 import com.fasterxml.jackson.core.*;
 import com.fasterxml.jackson.core.base.ParserMinimalBase;
 import com.fasterxml.jackson.core.io.IOContext;
+import com.fasterxml.jackson.core.sym.ByteQuadsCanonicalizer;
+import com.fasterxml.jackson.core.util.TextBuffer;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.Map;
 
 /**
  * @author Mark Vollmary
  * @author Michele Rastelli
  */
 public class VPackParser extends ParserMinimalBase {
+
+    /**
+     * Enumeration that defines all togglable features for VelocyPack parsers, set through
+     * {@link com.arangodb.jackson.dataformat.velocypack.VPackFactory#enable(Feature)} or per reader with
+     * {@link com.fasterxml.jackson.databind.ObjectReader#with(FormatFeature)}.
+     */
+    public enum Feature implements FormatFeature {
+        /**
+         * Feature that makes {@link #getEmbeddedObject()} return BINARY values as a read-only
+         * {@link ByteBuffer} view over their bytes in the input instead of a {@code byte[]} copy. A view is
+         * only valid as long as the input is: parsers reading from a stream or fed non-blocking reuse their
+         * buffer for the following root values and recycle it when closed. Only meant for callers of the
+         * streaming API: data binding copies {@code byte[]} and {@link ByteBuffer} values anyway, the former
+         * through the {@link BinaryViewDeserializer} registered by
+         * {@link com.arangodb.jackson.dataformat.velocypack.VPackMapper}.
+         */
+        BINARY_AS_BYTE_BUFFER(false);
+
+        private final boolean defaultState;
+        private final int mask;
+
+        Feature(final boolean defaultState) {
+            this.defaultState = defaultState;
+            mask = 1 << ordinal();
+        }
+
+        /**
+         * @return the bit mask of the features enabled by default
+         */
+        public static int collectDefaults() {
+            int flags = 0;
+            for (final Feature f : values()) {
+                if (f.enabledByDefault()) {
+                    flags |= f.getMask();
+                }
+            }
+            return flags;
+        }
+
+        @Override
+        public boolean enabledByDefault() {
+            return defaultState;
+        }
+
+        @Override
+        public int getMask() {
+            return mask;
+        }
+
+        @Override
+        public boolean enabledIn(final int flags) {
+            return (flags & mask) != 0;
+        }
+    }
+
+    /*
+    /**********************************************************
+    /* Constants
+    /**********************************************************
+     */
+
+    /**
+     * Tokens by head byte, {@code null} for types that do not map to any token.
+     */
+    private static final JsonToken[] TOKENS = new JsonToken[256];
+
+    static {
+        for (int i = 0; i < TOKENS.length; i++) {
+            final byte head = (byte) i;
+            switch (ValueTypeUtil.get(head)) {
+                case OBJECT:
+                    TOKENS[i] = JsonToken.START_OBJECT;
+                    break;
+                case ARRAY:
+                    TOKENS[i] = JsonToken.START_ARRAY;
+                    break;
+                case STRING:
+                    TOKENS[i] = JsonToken.VALUE_STRING;
+                    break;
+                case BOOL:
+                    TOKENS[i] = head == 0x1a ? JsonToken.VALUE_TRUE : JsonToken.VALUE_FALSE;
+                    break;
+                case DOUBLE:
+                    TOKENS[i] = JsonToken.VALUE_NUMBER_FLOAT;
+                    break;
+                case INT:
+                case SMALLINT:
+                case UINT:
+                    TOKENS[i] = JsonToken.VALUE_NUMBER_INT;
+                    break;
+                case NULL:
+                    TOKENS[i] = JsonToken.VALUE_NULL;
+                    break;
+                case BINARY:
+                    TOKENS[i] = JsonToken.VALUE_EMBEDDED_OBJECT;
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /*
+     * Layout of a frame of the cursor stack, one frame for each open Object or Array.
+     */
+
+    /**
+     * offset of the head byte of the compound value
+     */
+    protected static final int FRAME_START = 0;
+    /**
+     * index of the next member to visit
+     */
+    protected static final int FRAME_INDEX = 1;
+    /**
+     * number of members
+     */
+    protected static final int FRAME_COUNT = 2;
+    /**
+     * {@link #TYPE_OBJECT} or {@link #TYPE_ARRAY}
+     */
+    protected static final int FRAME_TYPE = 3;
+    /**
+     * offset of the next member to visit
+     */
+    protected static final int FRAME_NEXT = 4;
+    /**
+     * offset of the key of the current member, or -1 if there is none
+     */
+    protected static final int FRAME_NAME = 5;
+    protected static final int FRAME_SIZE = 6;
+
+    protected static final int TYPE_OBJECT = 0;
+    protected static final int TYPE_ARRAY = 1;
+
     /*
     /**********************************************************
     /* Configuration
@@ -30,6 +173,28 @@ public class VPackParser extends ParserMinimalBase {
      */
     protected ObjectCodec objectCodec;
 
+    /**
+     * Bit mask of the enabled {@link Feature}s.
+     */
+    protected int formatFeatures = Feature.collectDefaults();
+
+    /**
+     * Schema projecting the Objects at the root level, if any, and the UTF-8 bytes of its names.
+     */
+    protected VPackSchema schema;
+    protected byte[][] schemaNames;
+
+    /**
+     * Symbol table canonicalizing field names, if enabled by the factory, see
+     * {@link #setNameCanonicalizer(ByteQuadsCanonicalizer)}.
+     */
+    protected ByteQuadsCanonicalizer symbols;
+
+    /**
+     * Temporary buffer for the UTF-8 bytes of field names, packed into ints as looked up in {@link #symbols}.
+     */
+    protected int[] quadBuffer;
+
     /*
     /**********************************************************
     /* Generic I/O state
@@ -40,7 +205,7 @@ public class VPackParser extends ParserMinimalBase {
      * I/O context for this reader. It handles buffer allocation
      * for the reader.
      */
-    protected final IOContext ioContext;
+    protected IOContext ioContext;
 
     /**
      * Flag that indicates whether parser is closed or not. Gets
@@ -55,12 +220,69 @@ public class VPackParser extends ParserMinimalBase {
     /**********************************************************
      */
 
-    protected VPackSlice currentValue;
+    /**
+     * Offset of the head byte of the current value: the value of the current field for
+     * {@link JsonToken#FIELD_NAME}, the compound value itself for start tokens and the last
+     * visited member (or the compound value itself if none) for end tokens.
+     */
+    protected int currentStart;
     protected boolean beforeFirstToken;
+
+    /**
+     * Cursor stack of the open compound values, as a sequence of frames of {@link #FRAME_SIZE} ints.
+     */
+    protected int[] stack;
+
+    /**
+     * Number of open compound values.
+     */
+    protected int depth;
+
+    /**
+     * Decoded name of the current field, valid as long as {@link #currentNameStart} matches the
+     * key offset of the current frame.
+     */
     protected String currentName;
-    protected final LinkedList<Iterator<Map.Entry<String, VPackSlice>>> objectIterators;
-    protected final LinkedList<Iterator<VPackSlice>> arrayIterators;
-    protected final LinkedList<JsonToken> currentCompoundValue;
+    protected int currentNameStart;
+
+    /**
+     * Index of the current root value.
+     */
+    protected int rootIndex;
+
+    /**
+     * Parsing context of the root level, lazily created by {@link #getParsingContext()}.
+     */
+    protected VPackReadContext rootContext;
+
+    /**
+     * Pointer to the value to restrict parsing to, see {@link #seek(JsonPointer)}.
+     */
+    protected JsonPointer pointer;
+
+    /**
+     * Offsets of the keys of the current root Object selected by the {@link #schema}, in the order of the
+     * data, see {@link #project(int, byte)}, and whether the frame at the root level iterates over them.
+     */
+    protected int[] projection;
+    protected boolean projecting;
+
+    /**
+     * Number at {@link #currentStart} decoded by {@link #decodeNumber()}, valid as long as
+     * {@link #numberStart} matches: its type, or {@code null} if not a number, and its value, UINT values
+     * beyond {@link Long#MAX_VALUE} as their (negative) 64 bits.
+     */
+    protected int numberStart;
+    protected NumberType numberType;
+    protected long numberLong;
+    protected double numberDouble;
+
+    /**
+     * Characters of the String at {@link #currentStart} decoded by {@link #decodeText()}, valid as long as
+     * {@link #textStart} matches. The buffer is taken from the I/O context on first use.
+     */
+    protected TextBuffer textBuffer;
+    protected int textStart;
 
     /*
     /**********************************************************
@@ -68,6 +290,13 @@ public class VPackParser extends ParserMinimalBase {
     /**********************************************************
      */
 
+    /**
+     * Input stream that can be used for reading more content, if one
+     * in use. May be null, if input comes just as a full buffer,
+     * or if the stream has been closed.
+     */
+    protected InputStream inputStream;
+
     /**
      * Current buffer from which data is read; generally data is read into
      * buffer from input source, but in some cases pre-loaded buffer
@@ -75,6 +304,22 @@ public class VPackParser extends ParserMinimalBase {
      */
     protected byte[] inputBuffer;
 
+    /**
+     * Index of character after last available one in the buffer.
+     */
+    protected int inputEnd;
+
+    /**
+     * Number of bytes of input dropped from the start of the buffer, only
+     * maintained when reading from {@link #inputStream}.
+     */
+    protected long inputProcessed;
+
+    /**
+     * Index after the last byte of the root value.
+     */
+    protected int rootEnd;
+
     /**
      * Flag that indicates whether the input buffer is recycable (and
      * needs to be returned to recycler once we are done) or not.
@@ -97,6 +342,21 @@ public class VPackParser extends ParserMinimalBase {
             byte[] inputBuffer,
             int start,
             boolean bufferRecyclable) {
+        this(ctxt, parserFeatures, codec, inputBuffer, start, inputBuffer != null ? inputBuffer.length : 0,
+                bufferRecyclable);
+    }
+
+    /**
+     * Constructor for a parser reading the root values between the given offsets of the input buffer.
+     */
+    public VPackParser(
+            IOContext ctxt,
+            int parserFeatures,
+            ObjectCodec codec,
+            byte[] inputBuffer,
+            int start,
+            int end,
+            boolean bufferRecyclable) {
         super(parserFeatures);
         ioContext = ctxt;
         objectCodec = codec;
@@ -104,12 +364,85 @@ public class VPackParser extends ParserMinimalBase {
         this.inputBuffer = inputBuffer;
         this.bufferRecyclable = bufferRecyclable;
 
-        currentValue = new VPackSlice(inputBuffer, start);
+        inputEnd = end;
+        currentStart = start;
+        beforeFirstToken = true;
+        rootIndex = -1;
+        _currToken = null;
+        stack = new int[8 * FRAME_SIZE];
+        depth = 0;
+        currentNameStart = -1;
+        numberStart = -1;
+        textStart = -1;
+    }
+
+    /**
+     * Constructor for a parser reading from the given stream: the root value is read into the
+     * (possibly recycled) input buffer on the first call to {@link #nextToken()}, the buffer is grown
+     * in chunks if the value does not fit.
+     */
+    public VPackParser(
+            IOContext ctxt,
+            int parserFeatures,
+            ObjectCodec codec,
+            InputStream in,
+            byte[] inputBuffer,
+            boolean bufferRecyclable) {
+        this(ctxt, parserFeatures, codec, inputBuffer, 0, bufferRecyclable);
+        inputStream = in;
+        inputEnd = 0;
+        rootEnd = 0;
+    }
+
+    /**
+     * Resets this parser to read the root values between the given offsets of the input buffer, as if
+     * it had just been created with the given arguments, so that the instance can be reused. The current
+     * input is closed first, if still open.
+     *
+     * @see com.arangodb.jackson.dataformat.velocypack.VPackFactory#resetParser(VPackParser, byte[], int, int)
+     */
+    public void reset(
+            IOContext ctxt,
+            int parserFeatures,
+            ObjectCodec codec,
+            byte[] inputBuffer,
+            int start,
+            int end) throws IOException {
+        close();
+        ioContext = ctxt;
+        _features = parserFeatures;
+        objectCodec = codec;
+
+        this.inputBuffer = inputBuffer;
+        bufferRecyclable = false;
+        inputStream = null;
+        inputProcessed = 0L;
+        closed = false;
+        schema = null;
+        schemaNames = null;
+        projecting = false;
+        restart(start, end);
+    }
+
+    /**
+     * Moves this parser, reading from a buffer rather than a stream, before the root values between the
+     * given offsets of its input buffer.
+     */
+    void restart(final int start, final int end) {
+        inputEnd = end;
+        currentStart = start;
+        rootEnd = 0;
         beforeFirstToken = true;
+        rootIndex = -1;
+        rootContext = null;
         _currToken = null;
-        objectIterators = new LinkedList<>();
-        arrayIterators = new LinkedList<>();
-        currentCompoundValue = new LinkedList<>();
+        _lastClearedToken = null;
+        depth = 0;
+        currentName = null;
+        currentNameStart = -1;
+        pointer = null;
+        numberStart = -1;
+        textStart = -1;
     }
 
     @Override
@@ -122,6 +455,59 @@ public class VPackParser extends ParserMinimalBase {
         objectCodec = c;
     }
 
+    @Override
+    public int getFormatFeatures() {
+        return formatFeatures;
+    }
+
+    @Override
+    public JsonParser overrideFormatFeatures(final int values, final int mask) {
+        formatFeatures = (formatFeatures & ~mask) | (values & mask);
+        return this;
+    }
+
+    public boolean isEnabled(final Feature f) {
+        return f.enabledIn(formatFeatures);
+    }
+
+    @Override
+    public boolean canUseSchema(final FormatSchema schema) {
+        return schema instanceof VPackSchema;
+    }
+
+    /**
+     * Sets the {@link VPackSchema} to project the Objects at the root level with, or {@code null} to read them
+     * as a whole.
+     */
+    @Override
+    public void setSchema(final FormatSchema schema) {
+        if (schema != null && !canUseSchema(schema)) {
+            throw new IllegalArgumentException("Can not use FormatSchema of type " + schema.getClass().getName());
+        }
+        this.schema = (VPackSchema) schema;
+        schemaNames = null;
+        if (schema != null) {
+            schemaNames = new byte[this.schema.getNames().size()][];
+            int i = 0;
+            for (final String name : this.schema.getNames()) {
+                schemaNames[i++] = name.getBytes(StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    @Override
+    public VPackSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * @return whether the current token starts a root Object projected by the {@link #schema}, whose bytes
+     * include members that are not read
+     */
+    boolean projected() {
+        return schema != null && depth == 0 && _currToken == JsonToken.START_OBJECT;
+    }
+
     /*
     /**********************************************************
     /* Versioned
@@ -140,23 +526,30 @@ public class VPackParser extends ParserMinimalBase {
      */
 
     @Override
-    public int releaseBuffered(OutputStream out) {
-        return 0;
+    public int releaseBuffered(OutputStream out) throws IOException {
+        final int count = inputEnd - rootEnd;
+        if (inputBuffer == null || count <= 0) {
+            return 0;
+        }
+        out.write(inputBuffer, rootEnd, count);
+        return count;
     }
 
     @Override
     public Object getInputSource() {
-        return null;
+        return inputStream;
     }
 
     @Override
     public JsonLocation getTokenLocation() {
-        return new JsonLocation(ioContext.getSourceReference(), currentValue.getStart(), -1L, -1, -1);
+        return new JsonLocation(ioContext.getSourceReference(), inputProcessed + currentStart, -1L, -1, -1);
     }
 
     @Override
     public JsonLocation getCurrentLocation() {
-        return new JsonLocation(ioContext.getSourceReference(), currentValue.getStart() + currentValue.getByteSize(), -1L, -1, -1);
+        // a recycled input buffer is released on close
+        final int end = closed && bufferRecyclable ? rootEnd : currentStart + byteSize(currentStart);
+        return new JsonLocation(ioContext.getSourceReference(), inputProcessed + end, -1L, -1, -1);
     }
 
     /**
@@ -164,20 +557,43 @@ public class VPackParser extends ParserMinimalBase {
      * the current event.
      */
     @Override
-    public String getCurrentName() {
+    public String getCurrentName() throws IOException {
+        final int nameStart = depth > 0 ? stack[(depth - 1) * FRAME_SIZE + FRAME_NAME] : -1;
+        if (nameStart != currentNameStart) {
+            currentName = nameStart >= 0 ? readName(nameStart) : null;
+            currentNameStart = nameStart;
+        }
         return currentName;
     }
 
+    /**
+     * Sets the symbol table to look up field names in, a child table of the factory, or {@code null} to
+     * decode each name into a new String. The table is released to its parent on {@link #close()}.
+     */
+    public void setNameCanonicalizer(final ByteQuadsCanonicalizer symbols) {
+        this.symbols = symbols;
+    }
+
     @Override
     public void overrideCurrentName(String name) {
+        currentNameStart = depth > 0 ? stack[(depth - 1) * FRAME_SIZE + FRAME_NAME] : -1;
         currentName = name;
     }
 
     @Override
-    public void close() {
+    public void close() throws IOException {
         if (!closed) {
             closed = true;
-            releaseBuffers();
+            try {
+                closeInput();
+            } finally {
+                releaseBuffers();
+                if (symbols != null) {
+                    symbols.release();
+                    symbols = null;
+                }
+                IOContextUtil.close(ioContext);
+            }
         }
     }
 
@@ -188,7 +604,44 @@ public class VPackParser extends ParserMinimalBase {
 
     @Override
     public JsonStreamContext getParsingContext() {
-        return null;
+        if (rootContext == null) {
+            rootContext = new VPackReadContext(this, null, 0);
+        }
+        VPackReadContext context = rootContext;
+        context.reset(JsonStreamContext.TYPE_ROOT, rootIndex);
+        for (int frame = 0; frame < depth * FRAME_SIZE; frame += FRAME_SIZE) {
+            context = context.child();
+            context.reset(stack[frame + FRAME_TYPE] == TYPE_OBJECT ? JsonStreamContext.TYPE_OBJECT
+                    : JsonStreamContext.TYPE_ARRAY, stack[frame + FRAME_INDEX] - 1);
+        }
+        // the frame of a compound value is only pushed by the following token
+        final JsonToken token = _currToken != null ? _currToken : _lastClearedToken;
+        if (token == JsonToken.START_OBJECT) {
+            context = context.child();
+            context.reset(JsonStreamContext.TYPE_OBJECT, -1);
+        } else if (token == JsonToken.START_ARRAY) {
+            context = context.child();
+            context.reset(JsonStreamContext.TYPE_ARRAY, -1);
+        }
+        return context;
+    }
+
+    /**
+     * @return the name of the current member of the Object at the given nesting level (1 for the root
+     * value), {@code null} if there is none
+     */
+    String contextName(final int level) {
+        if (level == depth) {
+            try {
+                return getCurrentName();
+            } catch (final IOException e) {
+                throw new IllegalStateException(e);
+            }
+        } else if (level > depth) {
+            return null;
+        }
+        final int nameStart = stack[(level - 1) * FRAME_SIZE + FRAME_NAME];
+        return nameStart >= 0 ? readKey(nameStart) : null;
     }
 
     /*
@@ -197,6 +650,15 @@ public class VPackParser extends ParserMinimalBase {
     /**********************************************************
      */
 
+    protected void closeInput() throws IOException {
+        if (inputStream != null) {
+            if (ioContext.isResourceManaged() || isEnabled(JsonParser.Feature.AUTO_CLOSE_SOURCE)) {
+                inputStream.close();
+            }
+            inputStream = null;
+        }
+    }
+
     protected void releaseBuffers() {
         if (bufferRecyclable) {
             byte[] buf = inputBuffer;
@@ -205,6 +667,11 @@ public class VPackParser extends ParserMinimalBase {
                 ioContext.releaseReadIOBuffer(buf);
             }
         }
+        if (textBuffer != null) {
+            textBuffer.releaseBuffers();
+            textBuffer = null;
+            textStart = -1;
+        }
     }
 
     /*
@@ -214,262 +681,1174 @@ public class VPackParser extends ParserMinimalBase {
      */
 
     @Override
-    public JsonToken nextToken() {
+    public JsonToken nextToken() throws IOException {
+        if (closed) {
+            return null;
+        }
+        numberStart = -1;
+        textStart = -1;
         // ignore clear token
-        if (_currToken == null && _lastClearedToken != null && !currentCompoundValue.isEmpty()) {
+        if (_currToken == null && _lastClearedToken != null && !beforeFirstToken) {
             _currToken = _lastClearedToken;
         }
         if (beforeFirstToken && _currToken == null) {
             beforeFirstToken = false;
-            _currToken = getToken(currentValue.getType(), currentValue);
+            if (inputStream == null) {
+                rootEnd = currentStart + byteSize(currentStart);
+            } else if (!loadValue(currentStart)) {
+                close();
+                return null;
+            }
+            rootIndex++;
+            if (pointer != null) {
+                final int start = find(currentStart);
+                if (start < 0) {
+                    close();
+                    return null;
+                }
+                currentStart = start;
+            }
+            _currToken = getToken(currentStart);
             return _currToken;
         }
         if (_currToken == JsonToken.START_OBJECT) {
-            objectIterators.add(currentValue.objectIterator());
-            currentCompoundValue.add(JsonToken.START_OBJECT);
+            push(TYPE_OBJECT);
         } else if (_currToken == JsonToken.START_ARRAY) {
-            arrayIterators.add(currentValue.arrayIterator());
-            currentCompoundValue.add(JsonToken.START_ARRAY);
-        }
-        if (_currToken == JsonToken.FIELD_NAME) {
-            _currToken = getToken(currentValue.getType(), currentValue);
+            push(TYPE_ARRAY);
+        } else if (_currToken == JsonToken.FIELD_NAME) {
+            _currToken = getToken(currentStart);
             return _currToken;
         }
-        if (currentCompoundValue.isEmpty()) {
-            close();
-            return null;
+        if (depth == 0) {
+            if (pointer != null || !nextRoot()) {
+                close();
+                return _currToken = null;
+            }
+            _currToken = getToken(currentStart);
+            return _currToken;
         }
-        if (currentCompoundValue.getLast() == JsonToken.START_OBJECT && !objectIterators.isEmpty()) {
-            final Iterator<Map.Entry<String, VPackSlice>> lastObject = objectIterators.getLast();
-            if (lastObject.hasNext()) {
-                final Map.Entry<String, VPackSlice> next = lastObject.next();
-                currentName = next.getKey();
-                currentValue = next.getValue();
+        final int frame = (depth - 1) * FRAME_SIZE;
+        final int index = stack[frame + FRAME_INDEX];
+        if (index < stack[frame + FRAME_COUNT]) {
+            final int next = depth == 1 && projecting ? projection[index] : stack[frame + FRAME_NEXT];
+            stack[frame + FRAME_INDEX] = index + 1;
+            if (stack[frame + FRAME_TYPE] == TYPE_OBJECT) {
+                stack[frame + FRAME_NAME] = next;
+                currentStart = next + byteSize(next);
                 _currToken = JsonToken.FIELD_NAME;
             } else {
-                _currToken = JsonToken.END_OBJECT;
-                objectIterators.removeLast();
-                currentCompoundValue.removeLast();
-            }
-        } else if (currentCompoundValue.getLast() == JsonToken.START_ARRAY && !arrayIterators.isEmpty()) {
-            final Iterator<VPackSlice> lastArray = arrayIterators.getLast();
-            if (lastArray.hasNext()) {
-                currentName = null;
-                currentValue = lastArray.next();
-                _currToken = getToken(currentValue.getType(), currentValue);
-            } else {
-                _currToken = JsonToken.END_ARRAY;
-                arrayIterators.removeLast();
-                currentCompoundValue.removeLast();
+                currentStart = next;
+                _currToken = getToken(currentStart);
             }
+            stack[frame + FRAME_NEXT] = currentStart + byteSize(currentStart);
+        } else {
+            _currToken = stack[frame + FRAME_TYPE] == TYPE_OBJECT ? JsonToken.END_OBJECT : JsonToken.END_ARRAY;
+            depth--;
         }
         return _currToken;
     }
 
-    private JsonToken getToken(final ValueType type, final VPackSlice value) {
-        final JsonToken token;
-        switch (type) {
-            case OBJECT:
-                token = JsonToken.START_OBJECT;
-                break;
-            case ARRAY:
-                token = JsonToken.START_ARRAY;
-                break;
-            case STRING:
-                token = JsonToken.VALUE_STRING;
-                break;
-            case BOOL:
-                token = value.isTrue() ? JsonToken.VALUE_TRUE : JsonToken.VALUE_FALSE;
-                break;
-            case DOUBLE:
-                token = JsonToken.VALUE_NUMBER_FLOAT;
-                break;
-            case INT:
-            case SMALLINT:
-            case UINT:
-                token = JsonToken.VALUE_NUMBER_INT;
-                break;
-            case NULL:
-                token = JsonToken.VALUE_NULL;
-                break;
-            case BINARY:
-                token = JsonToken.VALUE_EMBEDDED_OBJECT;
-                break;
-            case NONE:
-                token = null;
-                break;
-            default:
-                throw new IllegalArgumentException("Unsupported token type: " + type);
-        }
-        return token;
+    @Override
+    public String nextFieldName() throws IOException {
+        return nextToken() == JsonToken.FIELD_NAME ? getCurrentName() : null;
     }
 
-    /*
-    /**********************************************************
-    /* Public API, access to token information, text
-    /**********************************************************
+    /**
+     * Compares the UTF-8 bytes of the given name with the key of the next field, if any, without decoding
+     * the key; on a match the given name becomes the current one.
      */
-
     @Override
-    public String getText() {
-        if (_currToken == JsonToken.FIELD_NAME) {
-            return currentName;
-        } else if (currentValue.isNumber()) {
-            return String.valueOf(getNumberValue());
-        } else if (currentValue.isBoolean()) {
-            return String.valueOf(currentValue.getAsBoolean());
-        } else if (currentValue.isNull()) {
-            return "null";
-        } else if (currentValue.isString()) {
-            return String.valueOf(currentValue.getAsString());
-        } else {
-            throw new UnsupportedOperationException("Calling getText() on " + currentValue.getType());
+    public boolean nextFieldName(final SerializableString str) throws IOException {
+        if (nextToken() != JsonToken.FIELD_NAME) {
+            return false;
         }
+        final int nameStart = stack[(depth - 1) * FRAME_SIZE + FRAME_NAME];
+        if (compareKey(nameStart, str.asUnquotedUTF8()) != 0) {
+            return false;
+        }
+        currentName = str.getValue();
+        currentNameStart = nameStart;
+        return true;
     }
 
+    /**
+     * Skips the current Object or Array in constant time: the cursor of a compound value is only
+     * pushed by the following {@link #nextToken()}, so it is enough to move to the matching end token
+     * without descending into its children. {@link #currentStart} keeps pointing to the skipped value,
+     * whose byte size tells where its children end.
+     */
     @Override
-    public char[] getTextCharacters() {
-        return getText().toCharArray();
-    }
-
-    @Override
-    public boolean hasTextCharacters() {
-        return false;
-    }
-
-    @Override
-    public int getTextLength() {
-        return getTextCharacters().length;
+    public JsonParser skipChildren() {
+        if (_currToken == JsonToken.START_OBJECT) {
+            _currToken = JsonToken.END_OBJECT;
+        } else if (_currToken == JsonToken.START_ARRAY) {
+            _currToken = JsonToken.END_ARRAY;
+        }
+        return this;
     }
 
-    @Override
-    public int getTextOffset() {
-        return 0;
+    /**
+     * Moves to the root value following the current one, if any: input may consist of a sequence of
+     * root values. A zero byte, which is not a valid value, is taken as end of input, to allow for padding.
+     *
+     * @return {@code false} at the end of the input
+     */
+    protected boolean nextRoot() throws IOException {
+        final int start;
+        if (inputStream != null) {
+            // drop the consumed root value from the buffer
+            final int remaining = inputEnd - rootEnd;
+            System.arraycopy(inputBuffer, rootEnd, inputBuffer, 0, remaining);
+            inputProcessed += rootEnd;
+            inputEnd = remaining;
+            rootEnd = 0;
+            start = 0;
+            if (!loadValue(start) || byteAt(start) == 0) {
+                return false;
+            }
+        } else {
+            start = rootEnd;
+            if (start >= inputEnd || byteAt(start) == 0) {
+                return false;
+            }
+            rootEnd = start + byteSize(start);
+        }
+        currentStart = start;
+        rootIndex++;
+        return true;
     }
 
-    /*
-    /**********************************************************
-    /* Public API, access to token information, binary
-    /**********************************************************
+    /**
+     * Opens a new frame for the compound value at {@link #currentStart}.
      */
-
-    @Override
-    public byte[] getBinaryValue(final Base64Variant b64variant) {
-        if (currentValue.isBinary()) {
-            return currentValue.getAsBinary();
-        } else if (currentValue.isString()) {
-            return b64variant.decode(currentValue.getAsString());
+    private void push(final int type) {
+        final int frame = depth * FRAME_SIZE;
+        if (frame == stack.length) {
+            stack = Arrays.copyOf(stack, stack.length << 1);
         }
-        return Arrays.copyOfRange(currentValue.getBuffer(), currentValue.getStart(),
-                currentValue.getStart() + currentValue.getByteSize());
+        final int start = currentStart;
+        final byte head = byteAt(start);
+        stack[frame + FRAME_START] = start;
+        stack[frame + FRAME_INDEX] = 0;
+        if (depth == 0) {
+            projecting = schema != null && type == TYPE_OBJECT;
+        }
+        stack[frame + FRAME_COUNT] = depth == 0 && projecting ? project(start, head) : memberCount(start, head);
+        stack[frame + FRAME_TYPE] = type;
+        stack[frame + FRAME_NEXT] = firstMember(start, head);
+        stack[frame + FRAME_NAME] = -1;
+        depth++;
     }
 
-    @Override
-    public Object getEmbeddedObject() {
-        if (currentValue.isBinary()) {
-            return currentValue.getAsBinary();
+    /**
+     * @return the number of members of the Array or Object at the given offset
+     */
+    int memberCount(final int start, final byte head) {
+        if (head == 0x01 || head == 0x0a) {
+            // empty
+            return 0;
+        } else if (head == 0x13 || head == 0x14) {
+            // compact array or object
+            final int end = (int) readVariableLength(start + 1, false);
+            return (int) readVariableLength(start + end - 1, true);
+        }
+        final int offsetSize = ObjectArrayUtil.getOffsetSize(head);
+        final int end = (int) readUnsigned(start + 1, offsetSize);
+        if (head <= 0x05) {
+            // array with no offset table or length
+            final int dataOffset = findDataOffset(start, head);
+            return (end - dataOffset) / byteSize(start + dataOffset);
+        } else if (offsetSize < 8) {
+            return (int) readUnsigned(start + 1 + offsetSize, offsetSize);
         } else {
-            throw new UnsupportedOperationException("Calling getEmbeddedObject() on " + currentValue.getType());
+            return (int) readUnsigned(start + end - offsetSize, offsetSize);
         }
     }
 
-    public VPackSlice getVPack() {
-        return currentValue;
+    /**
+     * @return the offset of the first member of the Array or Object at the given offset
+     */
+    int firstMember(final int start, final byte head) {
+        if (head == 0x01 || head == 0x0a) {
+            // empty
+            return start + 1;
+        } else if (head == 0x13 || head == 0x14) {
+            // compact array or object
+            return start + 1 + variableLengthSize(readVariableLength(start + 1, false));
+        }
+        return start + findDataOffset(start, head);
     }
 
-    @Override
-    public int readBinaryValue(Base64Variant b64variant, OutputStream out) {
+    protected JsonToken getToken(final int start) {
+        final byte head = byteAt(start);
+        final JsonToken token = TOKENS[head & 0xff];
+        if (token == null) {
+            final ValueType type = ValueTypeUtil.get(head);
+            if (type != ValueType.NONE) {
+                throw new IllegalArgumentException("Unsupported token type: " + type);
+            }
+        }
+        return token;
+    }
+
+    /*
+    /**********************************************************
+    /* Seeking by JSON Pointer
+    /**********************************************************
+     */
+
+    /**
+     * Restricts the parser, before its first token, to the value matching the given pointer within the
+     * root value: the first call to {@link #nextToken()} moves to it and the tokens end with it. Object
+     * members are looked up by binary search over the sorted index tables and Array elements through the
+     * index tables, so that only the values on the path are visited. If there is no such value, no
+     * tokens are returned.
+     *
+     * @return {@code false} if the parser is not positioned before its first token, in which case it is
+     * not changed
+     */
+    public boolean seek(final JsonPointer pointer) {
+        if (!beforeFirstToken || _currToken != null || closed) {
+            return false;
+        }
+        this.pointer = pointer;
+        return true;
+    }
+
+    /**
+     * @return the offset of the value matching {@link #pointer} within the value at the given offset,
+     * or -1
+     */
+    private int find(int start) {
+        for (JsonPointer ptr = pointer; start >= 0 && !ptr.matches(); ptr = ptr.tail()) {
+            start = skipTags(start);
+            final byte head = byteAt(start);
+            final ValueType type = ValueTypeUtil.get(head);
+            if (type == ValueType.OBJECT) {
+                start = findAttribute(start, head, ptr.getMatchingProperty().getBytes(StandardCharsets.UTF_8));
+            } else if (type == ValueType.ARRAY && ptr.getMatchingIndex() >= 0) {
+                start = findElement(start, head, ptr.getMatchingIndex());
+            } else {
+                start = -1;
+            }
+        }
+        return start;
+    }
+
+    int skipTags(int start) {
+        byte head = byteAt(start);
+        while (head == (byte) 0xee || head == (byte) 0xef) {
+            start += head == (byte) 0xee ? 2 : 9;
+            head = byteAt(start);
+        }
+        return start;
+    }
+
+    /**
+     * Collects into {@link #projection} the keys of the Object at the given offset selected by the
+     * {@link #schema}, in the order of the data: through the sorted index table if any, otherwise comparing
+     * each key with the selected names.
+     *
+     * @return the number of selected keys
+     */
+    private int project(final int start, final byte head) {
+        final byte[][] names = schemaNames;
+        if (projection == null || projection.length < names.length) {
+            projection = new int[names.length];
+        }
+        final int count = memberCount(start, head);
+        int selected = 0;
+        if (head >= 0x0b && head <= 0x0e && count > 1) {
+            for (final byte[] name : names) {
+                final int key = findKey(start, head, name);
+                if (key >= 0) {
+                    projection[selected++] = key;
+                }
+            }
+            Arrays.sort(projection, 0, selected);
+            return selected;
+        }
+        int key = firstMember(start, head);
+        for (int i = 0; i < count && selected < names.length; i++) {
+            for (final byte[] name : names) {
+                if (compareKey(key, name) == 0) {
+                    projection[selected++] = key;
+                    break;
+                }
+            }
+            final int value = key + byteSize(key);
+            key = value + byteSize(value);
+        }
+        return selected;
+    }
+
+    /**
+     * @return the offset of the value of the given attribute in the Object at the given offset, or -1
+     * @see VPackSlice#get(String)
+     */
+    int findAttribute(final int start, final byte head, final byte[] name) {
+        final int key = findKey(start, head, name);
+        return key >= 0 ? key + byteSize(key) : -1;
+    }
+
+    /**
+     * @return the offset of the key of the given attribute in the Object at the given offset, or -1
+     */
+    private int findKey(final int start, final byte head, final byte[] name) {
+        final int count = memberCount(start, head);
+        if (count == 0) {
+            return -1;
+        }
+        if (head >= 0x0b && head <= 0x0e && count > 1) {
+            // sorted index table
+            final int offsetSize = ObjectArrayUtil.getOffsetSize(head);
+            final int end = (int) readUnsigned(start + 1, offsetSize);
+            final int indexBase = start + end - count * offsetSize - (offsetSize == 8 ? 8 : 0);
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                final int key = start + (int) readUnsigned(indexBase + mid * offsetSize, offsetSize);
+                final int cmp = compareKey(key, name);
+                if (cmp == 0) {
+                    return key;
+                } else if (cmp < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return -1;
+        }
+        int key = firstMember(start, head);
+        for (int i = 0; i < count; i++) {
+            if (compareKey(key, name) == 0) {
+                return key;
+            }
+            final int value = key + byteSize(key);
+            key = value + byteSize(value);
+        }
         return -1;
     }
 
+    /**
+     * Compares the key at the given offset with the given UTF-8 name, as unsigned bytes.
+     */
+    private int compareKey(final int key, final byte[] name) {
+        final byte head = byteAt(key);
+        final int offset;
+        final int length;
+        if (head == (byte) 0xbf) {
+            offset = key + 9;
+            length = (int) readUnsigned(key + 1, 8);
+        } else if ((head & 0xff) >= 0x40 && (head & 0xff) <= 0xbe) {
+            offset = key + 1;
+            length = (head & 0xff) - 0x40;
+        } else {
+            // translated key
+            final byte[] translated = readKey(key).getBytes(StandardCharsets.UTF_8);
+            return compareBytes(translated, name);
+        }
+        for (int i = 0; i < length && i < name.length; i++) {
+            final int c = (byteAt(offset + i) & 0xff) - (name[i] & 0xff);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return length - name.length;
+    }
+
+    private static int compareBytes(final byte[] a, final byte[] b) {
+        for (int i = 0; i < a.length && i < b.length; i++) {
+            final int c = (a[i] & 0xff) - (b[i] & 0xff);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return a.length - b.length;
+    }
+
+    /**
+     * @return the offset of the element with the given index in the Array at the given offset, or -1
+     */
+    int findElement(final int start, final byte head, final int index) {
+        final int count = memberCount(start, head);
+        if (index >= count) {
+            return -1;
+        }
+        final int first = firstMember(start, head);
+        if (head <= 0x05 || count == 1) {
+            // no index table, all elements have the same size
+            return first + index * byteSize(first);
+        } else if (head == 0x13) {
+            int element = first;
+            for (int i = 0; i < index; i++) {
+                element += byteSize(element);
+            }
+            return element;
+        }
+        final int offsetSize = ObjectArrayUtil.getOffsetSize(head);
+        final int end = (int) readUnsigned(start + 1, offsetSize);
+        final int indexBase = start + end - count * offsetSize - (offsetSize == 8 ? 8 : 0);
+        return start + (int) readUnsigned(indexBase + index * offsetSize, offsetSize);
+    }
+
     /*
     /**********************************************************
-    /* Numeric accessors of public API
+    /* Loading of values from the input stream
     /**********************************************************
      */
 
-    @Override
-    public Number getNumberValue() {
-        switch (currentValue.getType()) {
+    /**
+     * Reads from {@link #inputStream} the whole value starting at the given offset of the input
+     * buffer: first the header bytes needed to know its byte size, then the rest of it.
+     *
+     * @return {@code false} if the input ended before the value
+     */
+    protected boolean loadValue(final int start) throws IOException {
+        if (!fill(start + 1)) {
+            return false;
+        }
+        int end;
+        while ((end = requiredEnd(start)) > inputEnd) {
+            require(end);
+        }
+        rootEnd = end;
+        return true;
+    }
+
+    /**
+     * Computes how far the input buffer must be filled to hold the value starting at the given offset,
+     * looking only at the bytes available so far.
+     *
+     * @return the end offset of the value, if its header is available, otherwise the end offset of the
+     * next part of the header needed
+     */
+    protected int requiredEnd(final int start) {
+        if (inputEnd <= start) {
+            return start + 1;
+        }
+        int header = start;
+        int head = byteAt(header) & 0xff;
+        // tags precede the tagged value
+        while (head == 0xee || head == 0xef) {
+            header += head == 0xee ? 2 : 9;
+            if (inputEnd <= header) {
+                return header + 1;
+            }
+            head = byteAt(header) & 0xff;
+        }
+        if (head == 0x13 || head == 0x14) {
+            // compact array or object, byte length as variable length integer
+            int i = header + 1;
+            do {
+                if (inputEnd <= i) {
+                    return i + 1;
+                }
+            } while ((byteAt(i++) & 0x80) != 0);
+        } else if (inputEnd < header + headerSize(head)) {
+            return header + headerSize(head);
+        }
+        return start + byteSize(start);
+    }
+
+    /**
+     * @return the number of leading bytes of a value needed to compute its byte size
+     */
+    private static int headerSize(final int head) {
+        if ((head >= 0x02 && head <= 0x09) || (head >= 0x0b && head <= 0x12)) {
+            return 1 + ObjectArrayUtil.getOffsetSize((byte) head);
+        } else if (head == 0xbf) {
+            // long UTF-8 String
+            return 1 + 8;
+        } else if (head >= 0xc0 && head <= 0xc7) {
+            // binary
+            return 1 + head - 0xbf;
+        } else if (head >= 0xc8 && head <= 0xcf) {
+            // positive BCD
+            return 1 + head - 0xc7;
+        } else if (head >= 0xd0 && head <= 0xd7) {
+            // negative BCD
+            return 1 + head - 0xcf;
+        } else if (head >= 0xf4 && head <= 0xf6) {
+            return 2;
+        } else if (head >= 0xf7 && head <= 0xf9) {
+            return 3;
+        } else if (head >= 0xfa && head <= 0xfc) {
+            return 5;
+        } else if (head >= 0xfd) {
+            return 9;
+        }
+        return 1;
+    }
+
+    private void require(final int end) throws IOException {
+        if (!fill(end)) {
+            _reportInvalidEOF(": truncated VelocyPack value", _currToken);
+        }
+    }
+
+    /**
+     * Reads from {@link #inputStream} until at least the given end index of the input buffer is
+     * available, growing the buffer as needed.
+     *
+     * @return {@code false} if the input ended before
+     */
+    private boolean fill(final int end) throws IOException {
+        while (inputEnd < end) {
+            if (inputEnd == inputBuffer.length) {
+                growBuffer(end);
+            }
+            final int count = inputStream.read(inputBuffer, inputEnd, inputBuffer.length - inputEnd);
+            if (count < 0) {
+                return false;
+            }
+            inputEnd += count;
+        }
+        return true;
+    }
+
+    /**
+     * Grows the input buffer towards the given length, at most doubling it at once so that the
+     * allocated memory follows the data actually read rather than the declared value size. A recycled
+     * buffer is given back immediately, large buffers are not kept by the recycler.
+     */
+    protected void growBuffer(final int minLength) {
+        final byte[] old = inputBuffer;
+        inputBuffer = Arrays.copyOf(old, Math.min(minLength, Math.max(old.length << 1, old.length + 1)));
+        if (bufferRecyclable) {
+            bufferRecyclable = false;
+            ioContext.releaseReadIOBuffer(old);
+        }
+    }
+
+    /*
+    /**********************************************************
+    /* Decoding of values by offset
+    /**********************************************************
+     */
+
+    /**
+     * @return the byte at the given offset of the input
+     */
+    protected byte byteAt(final int offset) {
+        return inputBuffer[offset];
+    }
+
+    /**
+     * @return the UTF-8 String of the given byte length at the given offset of the input
+     */
+    protected String readUtf8(final int offset, final int length) {
+        return new String(inputBuffer, offset, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return a copy of the given range of the input
+     */
+    protected byte[] copyRange(final int from, final int to) {
+        return Arrays.copyOfRange(inputBuffer, from, to);
+    }
+
+    /**
+     * @return a read-only view over the given range of the input
+     */
+    protected ByteBuffer viewRange(final int from, final int to) {
+        return ByteBuffer.wrap(inputBuffer, from, to - from).slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Writes the given range of the input to the given stream.
+     */
+    protected void writeRange(final OutputStream out, final int offset, final int length) throws IOException {
+        out.write(inputBuffer, offset, length);
+    }
+
+    /**
+     * @return the number of bytes of the value at the given offset
+     */
+    protected int byteSize(final int start) {
+        final byte head = byteAt(start);
+        final int fixed = ValueLengthUtil.get(head);
+        if (fixed != 0) {
+            return fixed;
+        }
+        if ((head >= 0x02 && head <= 0x09) || (head >= 0x0b && head <= 0x12)) {
+            return (int) readUnsigned(start + 1, ObjectArrayUtil.getOffsetSize(head));
+        } else if (head == 0x13 || head == 0x14) {
+            return (int) readVariableLength(start + 1, false);
+        } else if (head == (byte) 0xbf) {
+            // long UTF-8 String
+            return (int) (1 + 8 + readUnsigned(start + 1, 8));
+        } else if (head >= (byte) 0xc0 && head <= (byte) 0xc7) {
+            final int lengthSize = head - (byte) 0xbf;
+            return (int) (1 + lengthSize + readUnsigned(start + 1, lengthSize));
+        }
+        final int h = head & 0xff;
+        if (h >= 0xc8 && h <= 0xd7) {
+            // BCD, length of the mantissa, then 4 bytes of exponent
+            final int lengthSize = h <= 0xcf ? h - 0xc7 : h - 0xcf;
+            return (int) (1 + lengthSize + 4 + readUnsigned(start + 1, lengthSize));
+        } else if (h == 0xee || h == 0xef) {
+            // tags precede the tagged value
+            final int offset = h == 0xee ? 2 : 9;
+            return offset + byteSize(start + offset);
+        } else if (h >= 0xf4) {
+            final int lengthSize = h <= 0xf6 ? 1 : h <= 0xf9 ? 2 : h <= 0xfc ? 4 : 8;
+            return (int) (1 + lengthSize + readUnsigned(start + 1, lengthSize));
+        }
+        throw new IllegalStateException("Invalid type for byteSize()");
+    }
+
+    /**
+     * Must be called for a nonempty array or object.
+     *
+     * @see VPackSlice#findDataOffset()
+     */
+    private int findDataOffset(final int start, final byte head) {
+        final int fsm = ObjectArrayUtil.getFirstSubMap(head);
+        if (fsm <= 2 && byteAt(start + 2) != 0) {
+            return 2;
+        } else if (fsm <= 3 && byteAt(start + 3) != 0) {
+            return 3;
+        } else if (fsm <= 5 && byteAt(start + 6) != 0) {
+            return 5;
+        } else {
+            return 9;
+        }
+    }
+
+    /**
+     * @return the little endian unsigned integer of the given byte width
+     */
+    protected long readUnsigned(final int offset, final int length) {
+        long result = 0;
+        for (int i = offset + length - 1; i >= offset; i--) {
+            result = (result << 8) | (byteAt(i) & 0xFF);
+        }
+        return result;
+    }
+
+    /**
+     * @return the unsigned LEB128 integer starting at the given offset
+     */
+    private long readVariableLength(final int offset, final boolean reverse) {
+        long len = 0;
+        byte v;
+        int p = 0;
+        int i = offset;
+        do {
+            v = byteAt(i);
+            len += ((long) (v & 0x7f)) << p;
+            p += 7;
+            i = reverse ? i - 1 : i + 1;
+        } while ((v & 0x80) != 0);
+        return len;
+    }
+
+    private static int variableLengthSize(long value) {
+        int len = 1;
+        while (value >= 0x80) {
+            value >>= 7;
+            ++len;
+        }
+        return len;
+    }
+
+    /**
+     * @return the value of the SMALLINT, INT or UINT at the given offset, UINT values beyond
+     * {@link Long#MAX_VALUE} overflow
+     */
+    protected long readInteger(final int start) {
+        final byte head = byteAt(start);
+        if (head >= 0x30 && head <= 0x39) {
+            return head - 0x30;
+        } else if (head >= 0x3a && head <= 0x3f) {
+            return head - 0x3a - 6;
+        } else if (head >= 0x20 && head <= 0x27) {
+            final int length = head - 0x1f;
+            final long value = readUnsigned(start + 1, length);
+            final int shift = 64 - (length << 3);
+            return (value << shift) >> shift;
+        } else {
+            return readUnsigned(start + 1, head - 0x27);
+        }
+    }
+
+    protected double readDouble(final int start) {
+        return Double.longBitsToDouble(readUnsigned(start + 1, 8));
+    }
+
+    /**
+     * @return the String at the given offset
+     */
+    protected String readString(final int start) {
+        final byte head = byteAt(start);
+        if (head == (byte) 0xbf) {
+            return readUtf8(start + 9, (int) readUnsigned(start + 1, 8));
+        }
+        return readUtf8(start + 1, (head & 0xff) - 0x40);
+    }
+
+    /**
+     * @return the attribute name of the key at the given offset, translating integer keys
+     */
+    protected String readKey(final int start) {
+        switch (ValueTypeUtil.get(byteAt(start))) {
+            case STRING:
+                return readString(start);
             case SMALLINT:
-                return currentValue.getAsInt();
             case INT:
-                long longValue = currentValue.getAsLong();
-                if (longValue < Integer.MIN_VALUE || longValue > Integer.MAX_VALUE) {
-                    return longValue;
-                } else {
-                    return currentValue.getAsInt();
-                }
             case UINT:
-                return currentValue.getAsBigInteger();
-            case DOUBLE:
-                return currentValue.getAsDouble();
+                final VPackSlice translated = VPackSlice.attributeTranslator.translate((int) readInteger(start));
+                return (translated != null ? translated : VPackSlice.NONE_SLICE).getAsString();
             default:
-                throw new UnsupportedOperationException("Cannot get number from " + currentValue.getType());
+                throw new VPackKeyTypeException("Cannot translate key of this type");
+        }
+    }
+
+    /**
+     * @return the attribute name of the key at the given offset, String keys looked up in {@link #symbols}
+     * through their UTF-8 bytes and only decoded if not found
+     */
+    protected String readName(final int start) throws IOException {
+        final byte head = byteAt(start);
+        if (symbols == null || (head & 0xff) < 0x40 || (head & 0xff) > 0xbf) {
+            return readKey(start);
+        }
+        final int offset;
+        final int length;
+        if (head == (byte) 0xbf) {
+            offset = start + 9;
+            length = (int) readUnsigned(start + 1, 8);
+        } else {
+            offset = start + 1;
+            length = (head & 0xff) - 0x40;
+        }
+        if (length == 0) {
+            return "";
+        }
+        // big-endian quads, the last one padded with 0xff bytes which do not occur in UTF-8
+        final int qlen = (length + 3) >> 2;
+        if (quadBuffer == null || quadBuffer.length < qlen) {
+            quadBuffer = new int[Math.max(qlen, 16)];
+        }
+        final int[] quads = quadBuffer;
+        int q = 0;
+        for (int i = 0; i < length; i++) {
+            q = (q << 8) | (byteAt(offset + i) & 0xff);
+            if ((i & 3) == 3) {
+                quads[i >> 2] = q;
+                q = 0;
+            }
+        }
+        final int last = length & 3;
+        if (last != 0) {
+            quads[qlen - 1] = q | (-1 << (last << 3));
+        }
+        final String name = symbols.findName(quads, qlen);
+        return name != null ? name : symbols.addName(readUtf8(offset, length), quads, qlen);
+    }
+
+    /**
+     * Decodes the String at {@link #currentStart} into {@link #textBuffer}, once per token.
+     */
+    private TextBuffer decodeText() {
+        if (textStart != currentStart) {
+            if (textBuffer == null) {
+                textBuffer = ioContext != null ? ioContext.constructTextBuffer() : new TextBuffer(null);
+            }
+            final byte head = byteAt(currentStart);
+            final int offset;
+            final int length;
+            if (head == (byte) 0xbf) {
+                offset = currentStart + 9;
+                length = (int) readUnsigned(currentStart + 1, 8);
+            } else {
+                offset = currentStart + 1;
+                length = (head & 0xff) - 0x40;
+            }
+            // UTF-8 never takes fewer bytes than UTF-16 chars, not even with replacement chars
+            char[] chars = textBuffer.emptyAndGetCurrentSegment();
+            if (chars.length < length) {
+                chars = textBuffer.expandCurrentSegment(length);
+            }
+            int size = decodeUtf8(offset, length, chars);
+            if (size < 0) {
+                final String text = readUtf8(offset, length);
+                size = text.length();
+                text.getChars(0, size, chars, 0);
+            }
+            textBuffer.setCurrentLength(size);
+            textStart = currentStart;
         }
+        return textBuffer;
     }
 
+    /**
+     * Decodes the given UTF-8 bytes into the given array, which must have room for as many chars.
+     *
+     * @return the number of chars, or -1 if the bytes are not well-formed UTF-8, to be decoded with
+     * replacement chars by {@link #readUtf8(int, int)}
+     */
+    private int decodeUtf8(final int offset, final int length, final char[] chars) {
+        final int end = offset + length;
+        int size = 0;
+        int i = offset;
+        while (i < end) {
+            int c = byteAt(i++);
+            if (c >= 0) {
+                chars[size++] = (char) c;
+                continue;
+            }
+            final int min;
+            int needed;
+            if ((c & 0xe0) == 0xc0) {
+                c &= 0x1f;
+                needed = 1;
+                min = 0x80;
+            } else if ((c & 0xf0) == 0xe0) {
+                c &= 0x0f;
+                needed = 2;
+                min = 0x800;
+            } else if ((c & 0xf8) == 0xf0) {
+                c &= 0x07;
+                needed = 3;
+                min = 0x10000;
+            } else {
+                return -1;
+            }
+            if (i + needed > end) {
+                return -1;
+            }
+            for (; needed > 0; needed--) {
+                final int b = byteAt(i++);
+                if ((b & 0xc0) != 0x80) {
+                    return -1;
+                }
+                c = (c << 6) | (b & 0x3f);
+            }
+            // overlong encodings, surrogates and code points beyond Unicode
+            if (c < min || (c >= 0xd800 && c <= 0xdfff) || c > 0x10ffff) {
+                return -1;
+            }
+            if (c >= 0x10000) {
+                c -= 0x10000;
+                chars[size++] = (char) (0xd800 | (c >> 10));
+                chars[size++] = (char) (0xdc00 | (c & 0x3ff));
+            } else {
+                chars[size++] = (char) c;
+            }
+        }
+        return size;
+    }
+
+    private ValueType currentType() {
+        return ValueTypeUtil.get(byteAt(currentStart));
+    }
+
+    /*
+    /**********************************************************
+    /* Public API, access to token information, text
+    /**********************************************************
+     */
+
     @Override
-    public NumberType getNumberType() {
-        final NumberType type;
-        switch (currentValue.getType()) {
-            case SMALLINT:
-                type = NumberType.INT;
-                break;
+    public String getText() throws IOException {
+        if (_currToken == null) {
+            return null;
+        }
+        switch (_currToken) {
+            case FIELD_NAME:
+                return getCurrentName();
+            case VALUE_STRING:
+                return textStart == currentStart ? textBuffer.contentsAsString() : readString(currentStart);
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return String.valueOf(getNumberValue());
+            case VALUE_EMBEDDED_OBJECT:
+                // BINARY, encoded as base64 as in JSON
+                return Base64Variants.getDefaultVariant().encode(binaryPayload());
+            default:
+                return _currToken.asString();
+        }
+    }
+
+    /**
+     * Strings are decoded into a buffer recycled across tokens, other tokens are returned as a copy of
+     * {@link #getText()}.
+     */
+    @Override
+    public char[] getTextCharacters() throws IOException {
+        if (_currToken == JsonToken.VALUE_STRING) {
+            return decodeText().getTextBuffer();
+        }
+        final String text = getText();
+        return text != null ? text.toCharArray() : null;
+    }
+
+    @Override
+    public boolean hasTextCharacters() {
+        return _currToken == JsonToken.VALUE_STRING;
+    }
+
+    @Override
+    public int getTextLength() throws IOException {
+        if (_currToken == JsonToken.VALUE_STRING) {
+            return decodeText().size();
+        }
+        final String text = getText();
+        return text != null ? text.length() : 0;
+    }
+
+    @Override
+    public int getTextOffset() {
+        return 0;
+    }
+
+    /*
+    /**********************************************************
+    /* Public API, access to token information, binary
+    /**********************************************************
+     */
+
+    @Override
+    public byte[] getBinaryValue(final Base64Variant b64variant) {
+        switch (currentType()) {
+            case BINARY:
+                return binaryPayload();
+            case STRING:
+                return b64variant.decode(readString(currentStart));
+            default:
+                return copyRange(currentStart, currentStart + byteSize(currentStart));
+        }
+    }
+
+    /**
+     * @return the payload of the current BINARY value, as a copy or, if {@link Feature#BINARY_AS_BYTE_BUFFER} is
+     * enabled, as a read-only view over the input
+     */
+    @Override
+    public Object getEmbeddedObject() {
+        if (currentType() != ValueType.BINARY) {
+            throw new UnsupportedOperationException("Calling getEmbeddedObject() on " + currentType());
+        } else if (Feature.BINARY_AS_BYTE_BUFFER.enabledIn(formatFeatures)) {
+            final int offset = binaryOffset();
+            return viewRange(offset, offset + binaryLength());
+        }
+        return binaryPayload();
+    }
+
+    /**
+     * Writes the payload of the current BINARY value straight from the input to the given stream, other
+     * values as decoded by {@link #getBinaryValue(Base64Variant)}.
+     */
+    @Override
+    public int readBinaryValue(final Base64Variant b64variant, final OutputStream out) throws IOException {
+        if (currentType() == ValueType.BINARY) {
+            final int length = binaryLength();
+            writeRange(out, binaryOffset(), length);
+            return length;
+        }
+        final byte[] bytes = getBinaryValue(b64variant);
+        out.write(bytes);
+        return bytes.length;
+    }
+
+    private byte[] binaryPayload() {
+        final int offset = binaryOffset();
+        return copyRange(offset, offset + binaryLength());
+    }
+
+    private int binaryOffset() {
+        return currentStart + 1 + byteAt(currentStart) - (byte) 0xbf;
+    }
+
+    private int binaryLength() {
+        return (int) readUnsigned(currentStart + 1, byteAt(currentStart) - (byte) 0xbf);
+    }
+
+    /**
+     * @return a slice over the current value, sharing the input buffer
+     */
+    public VPackSlice getVPack() {
+        return new VPackSlice(inputBuffer, currentStart);
+    }
+
+    /**
+     * Writes the current String value to the given generator through
+     * {@link JsonGenerator#writeUTF8String(byte[], int, int)}, from its UTF-8 bytes in the input, without
+     * decoding them. Any other value is written as its text.
+     */
+    public void writeUTF8String(final JsonGenerator g) throws IOException {
+        if (_currToken != JsonToken.VALUE_STRING) {
+            g.writeString(getText());
+            return;
+        }
+        final byte head = byteAt(currentStart);
+        if (head == (byte) 0xbf) {
+            writeUTF8String(g, currentStart + 9, (int) readUnsigned(currentStart + 1, 8));
+        } else {
+            writeUTF8String(g, currentStart + 1, (head & 0xff) - 0x40);
+        }
+    }
+
+    protected void writeUTF8String(final JsonGenerator g, final int offset, final int length) throws IOException {
+        g.writeUTF8String(inputBuffer, offset, length);
+    }
+
+    /*
+    /**********************************************************
+    /* Numeric accessors of public API
+    /**********************************************************
+     */
+
+    /**
+     * Decodes the number at {@link #currentStart}, once per token.
+     *
+     * @return the type of the number, or {@code null} if the current value is not a number
+     */
+    private NumberType decodeNumber() {
+        if (numberStart != currentStart) {
+            switch (currentType()) {
+                case SMALLINT:
+                    numberLong = readInteger(currentStart);
+                    numberType = NumberType.INT;
+                    break;
+                case INT:
+                    numberLong = readInteger(currentStart);
+                    numberType = (int) numberLong == numberLong ? NumberType.INT : NumberType.LONG;
+                    break;
+                case UINT:
+                    numberLong = readInteger(currentStart);
+                    if (numberLong < 0) {
+                        numberType = NumberType.BIG_INTEGER;
+                    } else {
+                        numberType = numberLong > Integer.MAX_VALUE ? NumberType.LONG : NumberType.INT;
+                    }
+                    break;
+                case DOUBLE:
+                    numberDouble = readDouble(currentStart);
+                    numberType = NumberType.DOUBLE;
+                    break;
+                default:
+                    numberType = null;
+                    break;
+            }
+            numberStart = currentStart;
+        }
+        return numberType;
+    }
+
+    /**
+     * @return the decoded UINT beyond {@link Long#MAX_VALUE}
+     */
+    private BigInteger unsignedBigInteger() {
+        return BigInteger.valueOf(numberLong & Long.MAX_VALUE).setBit(63);
+    }
+
+    @Override
+    public Number getNumberValue() {
+        final NumberType type = decodeNumber();
+        if (type == null) {
+            throw new UnsupportedOperationException("Cannot get number from " + currentType());
+        }
+        switch (type) {
             case INT:
-                long longValue = currentValue.getAsLong();
-                if (longValue < Integer.MIN_VALUE || longValue > Integer.MAX_VALUE) {
-                    type = NumberType.LONG;
-                } else {
-                    type = NumberType.INT;
-                }
-                break;
-            case UINT:
-                type = NumberType.BIG_INTEGER;
-                break;
-            case DOUBLE:
-                type = NumberType.DOUBLE;
-                break;
+                return (int) numberLong;
+            case LONG:
+                return numberLong;
+            case BIG_INTEGER:
+                return unsignedBigInteger();
             default:
-                type = null;
-                break;
+                return numberDouble;
         }
-        return type;
+    }
+
+    @Override
+    public NumberType getNumberType() {
+        return decodeNumber();
     }
 
     @Override
     public int getIntValue() {
-        return currentValue.getAsInt();
+        final NumberType type = decodeNumber();
+        if (type == null) {
+            return getVPack().getAsInt();
+        }
+        return type == NumberType.DOUBLE ? (int) numberDouble : (int) numberLong;
     }
 
     @Override
     public long getLongValue() {
-        return currentValue.getAsLong();
+        final NumberType type = decodeNumber();
+        if (type == null) {
+            return getVPack().getAsLong();
+        }
+        return type == NumberType.DOUBLE ? (long) numberDouble : numberLong;
     }
 
     @Override
     public BigInteger getBigIntegerValue() {
-        return currentValue.getAsBigInteger();
+        final NumberType type = decodeNumber();
+        if (type == NumberType.INT || type == NumberType.LONG) {
+            return BigInteger.valueOf(numberLong);
+        } else if (type == NumberType.BIG_INTEGER) {
+            return unsignedBigInteger();
+        }
+        return getVPack().getAsBigInteger();
     }
 
     @Override
     public float getFloatValue() {
-        return currentValue.getAsFloat();
+        final NumberType type = decodeNumber();
+        if (type == null) {
+            return getVPack().getAsFloat();
+        }
+        switch (type) {
+            case DOUBLE:
+                return (float) numberDouble;
+            case BIG_INTEGER:
+                return unsignedBigInteger().floatValue();
+            default:
+                return (float) numberLong;
+        }
     }
 
     @Override
     public double getDoubleValue() {
-        return currentValue.getAsDouble();
+        final NumberType type = decodeNumber();
+        if (type == null) {
+            return getVPack().getAsDouble();
+        }
+        switch (type) {
+            case DOUBLE:
+                return numberDouble;
+            case BIG_INTEGER:
+                return unsignedBigInteger().doubleValue();
+            default:
+                return (double) numberLong;
+        }
     }
 
     @Override
     public BigDecimal getDecimalValue() {
-        return currentValue.getAsBigDecimal();
+        final NumberType type = decodeNumber();
+        if (type == null) {
+            return getVPack().getAsBigDecimal();
+        }
+        switch (type) {
+            case DOUBLE:
+                return BigDecimal.valueOf(numberDouble);
+            case BIG_INTEGER:
+                return new BigDecimal(unsignedBigInteger());
+            default:
+                return BigDecimal.valueOf(numberLong);
+        }
     }
 
     @Override
-    protected void _handleEOF() {
-        throw new UnsupportedOperationException("Stream decoding is not supported!");
+    protected void _handleEOF() throws JsonParseException {
+        _reportInvalidEOF();
     }
 
 }
@@ -0,0 +1,76 @@
+package com.arangodb.jackson.dataformat.velocypack.internal;
+
+import com.fasterxml.jackson.core.JsonStreamContext;
+
+/**
+ * Parsing context of a {@link VPackParser}, as a view over one level of its cursor stack. There is one
+ * instance per nesting level, reused as the parser moves, whose type and index are refreshed by
+ * {@link VPackParser#getParsingContext()}. As with {@code JsonReadContext}, the current value is kept for
+ * the whole compound value and only cleared when the context moves on to another one.
+ */
+public final class VPackReadContext extends JsonStreamContext {
+
+    private final VPackParser parser;
+    private final VPackReadContext parent;
+    private final int level;
+    private VPackReadContext child;
+    private Object currentValue;
+    /**
+     * Number of compound values this context has been used for, and the serial and index of the parent at
+     * the time, identifying the current one.
+     */
+    private int serial;
+    private int parentSerial = -1;
+    private int parentIndex = -1;
+
+    VPackReadContext(VPackParser parser, VPackReadContext parent, int level) {
+        this.parser = parser;
+        this.parent = parent;
+        this.level = level;
+        _type = TYPE_ROOT;
+        _index = -1;
+    }
+
+    VPackReadContext child() {
+        if (child == null) {
+            child = new VPackReadContext(parser, this, level + 1);
+        }
+        return child;
+    }
+
+    /**
+     * Refreshes this context, after its parent: it reads another compound value if the parent has moved
+     * on to another member.
+     */
+    void reset(int type, int index) {
+        if (parent != null && (parentSerial != parent.serial || parentIndex != parent._index)) {
+            parentSerial = parent.serial;
+            parentIndex = parent._index;
+            serial++;
+            currentValue = null;
+        }
+        _type = type;
+        _index = index;
+    }
+
+    @Override
+    public VPackReadContext getParent() {
+        return parent;
+    }
+
+    @Override
+    public String getCurrentName() {
+        return _type == TYPE_OBJECT ? parser.contextName(level) : null;
+    }
+
+    @Override
+    public Object getCurrentValue() {
+        return currentValue;
+    }
+
+    @Override
+    public void setCurrentValue(Object v) {
+        currentValue = v;
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2016 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.jackson.dataformat.velocypack;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+public class SequenceTest {
+
+    private final VPackMapper mapper = new VPackMapper();
+
+    public static class Doc {
+        public String name;
+        public int count;
+
+        public Doc() {
+        }
+
+        Doc(String name, int count) {
+            this.name = name;
+            this.count = count;
+        }
+    }
+
+    private byte[] writeSequence(int size) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SequenceWriter writer = mapper.writerFor(Doc.class).writeValues(out);
+        for (int i = 0; i < size; i++) {
+            int before = out.size();
+            writer.write(new Doc("doc" + i, i));
+            // each root value is emitted as soon as it is complete
+            assertThat(out.size() > before, is(true));
+        }
+        writer.close();
+        return out.toByteArray();
+    }
+
+    @Test
+    public void readValuesFromBytes() throws IOException {
+        byte[] bytes = writeSequence(3);
+        MappingIterator<Doc> it = mapper.readerFor(Doc.class).readValues(bytes);
+        List<Doc> docs = it.readAll();
+        assertThat(docs.size(), is(3));
+        for (int i = 0; i < 3; i++) {
+            assertThat(docs.get(i).name, is("doc" + i));
+            assertThat(docs.get(i).count, is(i));
+        }
+    }
+
+    @Test
+    public void readValuesFromStream() throws IOException {
+        byte[] bytes = writeSequence(1000);
+        MappingIterator<Doc> it = mapper.readerFor(Doc.class).readValues(new ByteArrayInputStream(bytes));
+        int i = 0;
+        while (it.hasNextValue()) {
+            Doc doc = it.nextValue();
+            assertThat(doc.name, is("doc" + i));
+            assertThat(doc.count, is(i));
+            i++;
+        }
+        assertThat(i, is(1000));
+    }
+
+    @Test
+    public void readScalarsWithPadding() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SequenceWriter writer = mapper.writer().writeValues(out);
+        writer.write(1).write("two").write(null).write(Arrays.asList(3, 4));
+        writer.close();
+        out.write(new byte[8]);
+        byte[] bytes = out.toByteArray();
+
+        JsonParser p = mapper.getFactory().createParser(bytes);
+        assertThat(p.nextToken(), is(JsonToken.VALUE_NUMBER_INT));
+        assertThat(p.nextToken(), is(JsonToken.VALUE_STRING));
+        assertThat(p.nextToken(), is(JsonToken.VALUE_NULL));
+        assertThat(p.nextToken(), is(JsonToken.START_ARRAY));
+        assertThat(p.nextToken(), is(JsonToken.VALUE_NUMBER_INT));
+        assertThat(p.nextToken(), is(JsonToken.VALUE_NUMBER_INT));
+        assertThat(p.nextToken(), is(JsonToken.END_ARRAY));
+        assertThat(p.nextToken(), is(nullValue()));
+        p.close();
+
+        List<Object> values = mapper.readerFor(Object.class).readValues(bytes).readAll();
+        assertThat(values, is(Arrays.<Object>asList(1, "two", null, Arrays.asList(3, 4))));
+    }
+
+    @Test
+    public void readSingleValueFromRange() throws IOException {
+        byte[] bytes = writeSequence(2);
+        int first = mapper.writeValueAsBytes(new Doc("doc0", 0)).length;
+        Doc doc = mapper.readerFor(Doc.class).readValue(bytes, first, bytes.length - first);
+        assertThat(doc.name, is("doc1"));
+    }
+
+}
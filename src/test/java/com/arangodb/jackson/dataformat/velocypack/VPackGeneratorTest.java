@@ -0,0 +1,276 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2016 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.jackson.dataformat.velocypack;
+
+import com.arangodb.velocypack.VPackBuilder;
+import com.arangodb.velocypack.VPackSlice;
+import com.arangodb.velocypack.ValueType;
+import com.fasterxml.jackson.core.JsonGenerationException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class VPackGeneratorTest {
+
+    private final VPackMapper mapper = new VPackMapper();
+
+    private static void add(VPackBuilder builder, String name, JsonNode node) {
+        if (node.isObject()) {
+            builder.add(name, ValueType.OBJECT);
+            for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = it.next();
+                add(builder, field.getKey(), field.getValue());
+            }
+            builder.close();
+        } else if (node.isArray()) {
+            builder.add(name, ValueType.ARRAY);
+            for (JsonNode element : node) {
+                add(builder, null, element);
+            }
+            builder.close();
+        } else if (node.isTextual()) {
+            builder.add(name, node.textValue());
+        } else if (node.isInt()) {
+            builder.add(name, node.intValue());
+        } else if (node.isLong()) {
+            builder.add(name, node.longValue());
+        } else if (node.isDouble()) {
+            builder.add(name, node.doubleValue());
+        } else if (node.isBoolean()) {
+            builder.add(name, node.booleanValue());
+        } else {
+            builder.add(name, ValueType.NULL);
+        }
+    }
+
+    private void assertSameAsBuilder(JsonNode node) throws IOException {
+        VPackBuilder builder = new VPackBuilder();
+        add(builder, null, node);
+        assertThat(mapper.writeValueAsBytes(node), is(builder.slice().toByteArray()));
+    }
+
+    @Test
+    public void smallValues() throws IOException {
+        ObjectNode doc = mapper.createObjectNode();
+        doc.put("z", "last").put("a", 1).put("m", -3).put("big", 1234567890123L).put("d", 1.5)
+                .put("t", true).putNull("n");
+        doc.putObject("single").put("x", 7);
+        doc.putObject("empty");
+        doc.putArray("none");
+        doc.putArray("one").add(1);
+        doc.putArray("same").add(1).add(2).add(3);
+        doc.putArray("mixed").add(1).add("two").add(3000);
+        assertSameAsBuilder(doc);
+        assertSameAsBuilder(mapper.createArrayNode().add(1));
+        assertSameAsBuilder(mapper.createObjectNode());
+    }
+
+    @Test
+    public void largeValues() throws IOException {
+        for (int size : new int[]{20, 300, 20000}) {
+            ObjectNode doc = mapper.createObjectNode();
+            ArrayNode same = doc.putArray("same");
+            ArrayNode mixed = doc.putArray("mixed");
+            for (int i = size; i > 0; i--) {
+                doc.put("key" + i, "value" + i);
+                same.add(i + 100000);
+                mixed.add(i % 2 == 0 ? "v" + i : String.valueOf(i));
+            }
+            doc.put("long", new String(new char[200]).replace('\0', 'x'));
+            assertSameAsBuilder(doc);
+            assertSameAsBuilder(same);
+            assertSameAsBuilder(mixed);
+        }
+    }
+
+    @Test
+    public void utf8Strings() throws IOException {
+        String shortString = "\u00e4\u00f6\u00fc \u20ac \ud83d\ude00";
+        String longString = new String(new char[100]).replace("\0", shortString);
+        byte[] shortBytes = ("--" + shortString).getBytes(StandardCharsets.UTF_8);
+        byte[] longBytes = longString.getBytes(StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonGenerator g = mapper.getFactory().createGenerator(out);
+        g.writeStartArray();
+        g.writeUTF8String(shortBytes, 2, shortBytes.length - 2);
+        g.writeRawUTF8String(longBytes, 0, longBytes.length);
+        g.writeEndArray();
+        g.close();
+
+        VPackSlice slice = new VPackSlice(out.toByteArray());
+        assertThat(slice.get(0).getAsString(), is(shortString));
+        assertThat(slice.get(1).getAsString(), is(longString));
+
+        for (String s : new String[]{shortString, longString, "a\ud83db\ude00c\ud83d"}) {
+            out.reset();
+            g = mapper.getFactory().createGenerator(out);
+            char[] chars = ("--" + s).toCharArray();
+            g.writeString(chars, 2, chars.length - 2);
+            g.close();
+            assertThat(out.toByteArray(), is(mapper.writeValueAsBytes(s)));
+        }
+    }
+
+    @Test
+    public void serializedFieldNames() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonGenerator g = mapper.getFactory().createGenerator(out);
+        g.writeStartObject();
+        g.writeFieldName(new SerializedString("z\u00e4hler"));
+        g.writeNumber(1);
+        g.writeFieldName(new SerializedString("_key"));
+        g.writeString("k");
+        g.writeFieldName("name");
+        g.writeString("n");
+        g.writeEndObject();
+        g.close();
+
+        VPackBuilder builder = new VPackBuilder();
+        builder.add(ValueType.OBJECT);
+        builder.add("z\u00e4hler", 1);
+        builder.add("_key", "k");
+        builder.add("name", "n");
+        builder.close();
+        assertThat(out.toByteArray(), is(builder.slice().toByteArray()));
+    }
+
+    @Test
+    public void copyCurrentStructure() throws IOException {
+        VPackBuilder builder = new VPackBuilder();
+        builder.add(ValueType.OBJECT);
+        builder.add("compact", ValueType.ARRAY, true);
+        builder.add("a");
+        builder.add(1);
+        builder.close();
+        builder.add("uint", ValueType.ARRAY);
+        builder.add(BigInteger.valueOf(12345678901L), ValueType.UINT);
+        builder.close();
+        builder.add("last", true);
+        builder.close();
+        byte[] bytes = builder.slice().toByteArray();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonParser p = mapper.getFactory().createParser(bytes);
+        JsonGenerator g = mapper.getFactory().createGenerator(out);
+        p.nextToken();
+        g.copyCurrentStructure(p);
+        g.close();
+        assertThat(out.toByteArray(), is(bytes));
+        assertThat(p.currentToken(), is(JsonToken.END_OBJECT));
+
+        out.reset();
+        p = mapper.getFactory().createParser(bytes);
+        g = mapper.getFactory().createGenerator(out);
+        g.writeStartObject();
+        assertThat(p.nextToken(), is(JsonToken.START_OBJECT));
+        assertThat(p.nextToken(), is(JsonToken.FIELD_NAME));
+        g.copyCurrentStructure(p);
+        assertThat(p.nextToken(), is(JsonToken.FIELD_NAME));
+        assertThat(p.currentName(), is("uint"));
+        g.writeEndObject();
+        g.close();
+        VPackSlice copy = new VPackSlice(out.toByteArray());
+        assertThat(copy.size(), is(1));
+        assertThat(copy.get("compact").toByteArray(), is(new VPackSlice(bytes).get("compact").toByteArray()));
+    }
+
+    @Test
+    public void binaryFromStream() throws IOException {
+        byte[] data = new byte[100000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator g = mapper.getFactory().createGenerator(out)) {
+            g.writeStartObject();
+            g.writeFieldName("known");
+            assertThat(g.writeBinary(new ByteArrayInputStream(data), data.length), is(data.length));
+            g.writeFieldName("unknown");
+            assertThat(g.writeBinary(new ByteArrayInputStream(data), -1), is(data.length));
+            g.writeFieldName("empty");
+            assertThat(g.writeBinary(new ByteArrayInputStream(new byte[0]), -1), is(0));
+            g.writeEndObject();
+        }
+
+        VPackSlice slice = new VPackSlice(out.toByteArray());
+        assertThat(slice.get("known").getAsBinary(), is(data));
+        assertThat(slice.get("unknown").getAsBinary(), is(data));
+        assertThat(slice.get("empty").getAsBinary().length, is(0));
+    }
+
+    @Test(expected = JsonGenerationException.class)
+    public void binaryFromShortStream() throws IOException {
+        try (JsonGenerator g = mapper.getFactory().createGenerator(new ByteArrayOutputStream())) {
+            g.writeBinary(new ByteArrayInputStream(new byte[10]), 11);
+        }
+    }
+
+    @Test
+    public void closeOpenContent() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonGenerator g = mapper.getFactory().createGenerator(out);
+        g.writeStartObject();
+        g.writeFieldName("list");
+        g.writeStartArray();
+        g.writeNumber(1);
+        g.writeFieldName("dangling");
+        g.close();
+        ObjectNode expected = mapper.createObjectNode();
+        expected.putArray("list").add(1);
+        assertThat(out.toByteArray(), is(mapper.writeValueAsBytes(expected)));
+    }
+
+    @Test
+    public void closeOpenContentDisabled() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonGenerator g = mapper.getFactory().createGenerator(out);
+        g.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+        g.writeNumber(1);
+        g.writeStartArray();
+        g.writeNumber(2);
+        try {
+            g.close();
+            throw new AssertionError("open Array not reported");
+        } catch (JsonGenerationException e) {
+            assertThat(g.isClosed(), is(true));
+        }
+        // only the complete root value is written
+        assertThat(out.toByteArray(), is(mapper.writeValueAsBytes(1)));
+    }
+
+}
@@ -0,0 +1,208 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2016 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+
+package com.arangodb.jackson.dataformat.velocypack;
+
+import com.arangodb.jackson.dataformat.velocypack.internal.LazyArrayNode;
+import com.arangodb.jackson.dataformat.velocypack.internal.LazyObjectNode;
+import com.arangodb.velocypack.VPackBuilder;
+import com.arangodb.velocypack.VPackSlice;
+import com.arangodb.velocypack.ValueType;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class VPackLazyTreeModuleTest {
+
+    private final VPackMapper mapper = new VPackMapper();
+    private final VPackMapper lazyMapper = new VPackMapper();
+
+    {
+        lazyMapper.registerModule(new VPackLazyTreeModule());
+    }
+
+    public static class Holder {
+        public String name;
+        public JsonNode value;
+    }
+
+    private static byte[] document() {
+        VPackBuilder builder = new VPackBuilder();
+        builder.add(ValueType.OBJECT);
+        builder.add("_key", "k1");
+        builder.add("name", "doc");
+        builder.add("count", 3);
+        builder.add("big", 1234567890123L);
+        builder.add("ratio", 0.5);
+        builder.add("flag", true);
+        builder.add("nothing", ValueType.NULL);
+        builder.add("bytes", new byte[]{1, 2, 3});
+        builder.add("nested", ValueType.OBJECT);
+        builder.add("x", 1);
+        builder.add("list", ValueType.ARRAY);
+        builder.add("a");
+        builder.add(2);
+        builder.close();
+        builder.close();
+        builder.add("same", ValueType.ARRAY);
+        for (int i = 0; i < 10; i++) {
+            builder.add(1000 + i);
+        }
+        builder.close();
+        builder.add("compact", ValueType.ARRAY, true);
+        builder.add("first");
+        builder.add(ValueType.OBJECT);
+        builder.add("y", "z");
+        builder.close();
+        builder.add(3);
+        builder.close();
+        builder.close();
+        return builder.slice().toByteArray();
+    }
+
+    @Test
+    public void readTree() throws IOException {
+        byte[] bytes = document();
+        JsonNode eager = mapper.readTree(bytes);
+        JsonNode lazy = lazyMapper.readTree(bytes);
+        assertThat(lazy, instanceOf(LazyObjectNode.class));
+        assertThat(lazy.size(), is(eager.size()));
+        assertThat(lazy.get("_key").textValue(), is("k1"));
+        assertThat(lazy.get("nested"), instanceOf(LazyObjectNode.class));
+        assertThat(lazy.get("nested").get("list"), instanceOf(LazyArrayNode.class));
+        assertThat(lazy.get("nested"), sameInstance(lazy.get("nested")));
+        assertThat(lazy.path("nested").path("list").path(1).intValue(), is(2));
+        assertThat(lazy.path("compact").path(1).path("y").textValue(), is("z"));
+        assertThat(lazy.path("same").path(7).intValue(), is(1007));
+        assertThat(lazy.get("missing"), is(nullValue()));
+        assertThat(lazy.path("missing").isMissingNode(), is(true));
+        assertThat(lazy.get("big").isLong(), is(true));
+        assertThat(lazy.get("bytes").binaryValue(), is(new byte[]{1, 2, 3}));
+
+        List<String> names = new ArrayList<>();
+        for (Iterator<String> it = lazy.fieldNames(); it.hasNext(); ) {
+            names.add(it.next());
+        }
+        List<String> eagerNames = new ArrayList<>();
+        for (Iterator<String> it = eager.fieldNames(); it.hasNext(); ) {
+            eagerNames.add(it.next());
+        }
+        assertThat(names, is(eagerNames));
+        assertThat(lazy, is(eager));
+        assertThat(eager, is(lazy));
+        assertThat(lazyMapper.readTree(bytes), is(eager));
+        assertThat(lazyMapper.readTree(new ByteArrayInputStream(bytes)), is(eager));
+        assertThat(mapper.readTree(mapper.writeValueAsBytes(lazy)), is(eager));
+    }
+
+    @Test
+    public void modify() throws IOException {
+        byte[] bytes = document();
+        ObjectNode eager = (ObjectNode) mapper.readTree(bytes);
+        ObjectNode lazy = (ObjectNode) lazyMapper.readTree(bytes);
+        for (ObjectNode node : new ObjectNode[]{eager, lazy}) {
+            node.put("count", 4);
+            node.remove("name");
+            ((ObjectNode) node.get("nested")).put("added", "v");
+            ((ArrayNode) node.get("same")).remove(0);
+            ((ArrayNode) node.get("compact")).add(false);
+        }
+        assertThat(lazy, is(eager));
+        assertThat(lazy.get("count").intValue(), is(4));
+        assertThat(lazy.has("name"), is(false));
+    }
+
+    @Test
+    public void writeUnmodified() throws IOException {
+        byte[] bytes = document();
+        ObjectNode lazy = (ObjectNode) lazyMapper.readTree(bytes);
+        assertThat(lazy.path("nested").path("list").path(0).textValue(), is("a"));
+        assertThat(lazy.path("compact").size(), is(3));
+        assertThat(((LazyObjectNode) lazy).isModified(), is(false));
+        // the compact Array is kept as it is, whereas the generator would write an indexed one
+        assertThat(mapper.writeValueAsBytes(lazy), is(bytes));
+        assertThat(mapper.writeValueAsBytes(lazy.get("compact")), is(new VPackSlice(bytes).get("compact").toByteArray()));
+
+        ((ObjectNode) lazy.get("nested")).put("x", 2);
+        assertThat(((LazyObjectNode) lazy).isModified(), is(true));
+        assertThat(((LazyArrayNode) lazy.get("compact")).isModified(), is(false));
+        VPackSlice written = new VPackSlice(mapper.writeValueAsBytes(lazy));
+        assertThat(written.get("nested").get("x").getAsInt(), is(2));
+        assertThat(written.get("compact").head(), is((byte) 0x13));
+        assertThat(mapper.readTree(written.toByteArray()), is((JsonNode) lazy));
+
+        lazy = (ObjectNode) lazyMapper.readTree(bytes);
+        lazy.set("name", lazy.get("name"));
+        assertThat(((LazyObjectNode) lazy).isModified(), is(false));
+        ((ArrayNode) lazy.get("same")).remove(9);
+        assertThat(((LazyObjectNode) lazy).isModified(), is(true));
+    }
+
+    @Test
+    public void writeWithFeatures() throws IOException {
+        byte[] bytes = document();
+        VPackMapper trimming = new VPackMapper();
+        trimming.disable(SerializationFeature.WRITE_EMPTY_JSON_ARRAYS);
+        JsonNode lazy = lazyMapper.readTree(bytes);
+        assertThat(trimming.writeValueAsBytes(lazy), is(trimming.writeValueAsBytes(mapper.readTree(bytes))));
+    }
+
+    @Test
+    public void features() throws IOException {
+        byte[] bytes = document();
+        lazyMapper.enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+        lazyMapper.enable(DeserializationFeature.USE_LONG_FOR_INTS);
+        JsonNode lazy = lazyMapper.readTree(bytes);
+        assertThat(lazy.get("ratio").decimalValue(), is(new BigDecimal("0.5")));
+        assertThat(lazy.get("count").isLong(), is(true));
+    }
+
+    @Test
+    public void pojoField() throws IOException {
+        ObjectNode value = mapper.createObjectNode();
+        value.put("a", 1).putArray("b").add("c");
+        Holder holder = new Holder();
+        holder.name = "h";
+        holder.value = value;
+        Holder read = lazyMapper.readValue(mapper.writeValueAsBytes(holder), Holder.class);
+        assertThat(read.name, is("h"));
+        assertThat(read.value, instanceOf(LazyObjectNode.class));
+        assertThat(read.value, is((JsonNode) value));
+        assertThat(lazyMapper.readTree(mapper.writeValueAsBytes("text")).textValue(), is("text"));
+    }
+
+}
@@ -0,0 +1,843 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2016 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+package com.arangodb.jackson.dataformat.velocypack;
+
+import com.arangodb.jackson.dataformat.velocypack.internal.ByteBufferVPackParser;
+import com.arangodb.jackson.dataformat.velocypack.internal.NonBlockingVPackParser;
+import com.arangodb.jackson.dataformat.velocypack.internal.VPackParser;
+import com.arangodb.velocypack.VPackBuilder;
+import com.arangodb.velocypack.ValueType;
+import com.arangodb.velocypack.internal.DefaultVPackBuilderOptions;
+import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.core.io.IOContext;
+import com.fasterxml.jackson.core.io.JsonEOFException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.util.BufferRecycler;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class VPackParserTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final VPackMapper mapper = new VPackMapper();
+
+    public static class Narrow {
+        public String name;
+        public int count;
+    }
+
+    private byte[] nestedDocument() throws IOException {
+        ObjectNode doc = mapper.createObjectNode();
+        doc.put("name", "foo");
+        ObjectNode blob = doc.putObject("blob");
+        blob.putArray("items").add(1).add("two").addObject().put("three", 3.0);
+        blob.putObject("nested").putObject("deeper").put("x", true);
+        doc.putArray("list").addArray().add(1).add(2);
+        doc.put("count", 42);
+        return mapper.writeValueAsBytes(doc);
+    }
+
+    @Test
+    public void skipChildren() throws IOException {
+        JsonParser p = mapper.getFactory().createParser(nestedDocument());
+        assertThat(p.nextToken(), is(JsonToken.START_OBJECT));
+        assertThat(p.nextFieldName(), is("name"));
+        assertThat(p.nextTextValue(), is("foo"));
+        assertThat(p.nextFieldName(), is("blob"));
+        assertThat(p.nextToken(), is(JsonToken.START_OBJECT));
+        assertThat(p.skipChildren().currentToken(), is(JsonToken.END_OBJECT));
+        assertThat(p.nextFieldName(), is("list"));
+        assertThat(p.nextToken(), is(JsonToken.START_ARRAY));
+        assertThat(p.nextToken(), is(JsonToken.START_ARRAY));
+        assertThat(p.skipChildren().currentToken(), is(JsonToken.END_ARRAY));
+        assertThat(p.nextToken(), is(JsonToken.END_ARRAY));
+        assertThat(p.nextFieldName(), is("count"));
+        assertThat(p.nextIntValue(-1), is(42));
+        assertThat(p.nextToken(), is(JsonToken.END_OBJECT));
+        assertThat(p.nextToken(), is(nullValue()));
+        p.close();
+    }
+
+    @Test
+    public void nextFieldNameMatching() throws IOException {
+        JsonParser p = mapper.getFactory().createParser(nestedDocument());
+        assertThat(p.nextToken(), is(JsonToken.START_OBJECT));
+        assertThat(p.nextFieldName(new SerializedString("name")), is(true));
+        assertThat(p.getCurrentName(), is("name"));
+        assertThat(p.nextTextValue(), is("foo"));
+        assertThat(p.nextFieldName(new SerializedString("bl")), is(false));
+        assertThat(p.currentToken(), is(JsonToken.FIELD_NAME));
+        assertThat(p.getCurrentName(), is("blob"));
+        p.nextToken();
+        p.skipChildren();
+        assertThat(p.nextFieldName(new SerializedString("lists")), is(false));
+        assertThat(p.getCurrentName(), is("list"));
+        p.nextToken();
+        p.skipChildren();
+        assertThat(p.nextFieldName(new SerializedString("count")), is(true));
+        assertThat(p.nextIntValue(-1), is(42));
+        assertThat(p.nextFieldName(new SerializedString("count")), is(false));
+        assertThat(p.currentToken(), is(JsonToken.END_OBJECT));
+        p.close();
+
+        VPackBuilder builder = new VPackBuilder();
+        builder.add(ValueType.OBJECT);
+        builder.add("_key", "k");
+        builder.close();
+        p = mapper.getFactory().createParser(builder.slice().toByteArray());
+        assertThat(p.nextToken(), is(JsonToken.START_OBJECT));
+        assertThat(p.nextFieldName(new SerializedString("_key")), is(true));
+        assertThat(p.nextTextValue(), is("k"));
+        p.close();
+    }
+
+    @Test
+    public void skipChildrenOfRoot() throws IOException {
+        JsonParser p = mapper.getFactory().createParser(nestedDocument());
+        assertThat(p.nextToken(), is(JsonToken.START_OBJECT));
+        assertThat(p.skipChildren().currentToken(), is(JsonToken.END_OBJECT));
+        assertThat(p.nextToken(), is(nullValue()));
+        p.close();
+    }
+
+    @Test
+    public void skipUnknownProperties() throws IOException {
+        Narrow narrow = mapper.readerFor(Narrow.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .readValue(nestedDocument());
+        assertThat(narrow.name, is("foo"));
+        assertThat(narrow.count, is(42));
+
+        Map<?, ?> map = mapper.readValue(nestedDocument(), Map.class);
+        assertThat(map.get("count"), is(42));
+    }
+
+    @Test
+    public void currentName() throws IOException {
+        JsonParser p = mapper.getFactory().createParser(nestedDocument());
+        assertThat(p.nextToken(), is(JsonToken.START_OBJECT));
+        assertThat(p.getCurrentName(), is(nullValue()));
+        assertThat(p.nextFieldName(), is("name"));
+        assertThat(p.nextToken(), is(JsonToken.VALUE_STRING));
+        assertThat(p.getCurrentName(), is("name"));
+        assertThat(p.nextFieldName(), is("blob"));
+        assertThat(p.nextToken(), is(JsonToken.START_OBJECT));
+        assertThat(p.getCurrentName(), is("blob"));
+        assertThat(p.nextFieldName(), is("items"));
+        assertThat(p.nextToken(), is(JsonToken.START_ARRAY));
+        assertThat(p.nextToken(), is(JsonToken.VALUE_NUMBER_INT));
+        assertThat(p.getCurrentName(), is(nullValue()));
+        assertThat(p.nextToken(), is(JsonToken.VALUE_STRING));
+        assertThat(p.nextToken(), is(JsonToken.START_OBJECT));
+        assertThat(p.skipChildren().currentToken(), is(JsonToken.END_OBJECT));
+        assertThat(p.nextToken(), is(JsonToken.END_ARRAY));
+        assertThat(p.getCurrentName(), is("items"));
+        p.close();
+    }
+
+    @Test
+    public void canonicalNames() throws IOException {
+        char[] chars = new char[200];
+        Arrays.fill(chars, 'x');
+        List<String> names = Arrays.asList("", "a", "ab", "abcd", "abcde", "\u00e4\u00f6\u00fc", "name-of-12ch",
+                "\u00e4\u00f6\u00fc-longer-name", new String(chars));
+        ObjectNode doc = mapper.createObjectNode();
+        for (String name : names) {
+            doc.put(name, name.length());
+        }
+        byte[] bytes = mapper.writeValueAsBytes(doc);
+
+        List<String> first = fieldNames(mapper.getFactory(), bytes);
+        List<String> second = fieldNames(mapper.getFactory(), bytes);
+        assertThat(first, containsInAnyOrder(names.toArray()));
+        for (int i = 0; i < first.size(); i++) {
+            assertThat(second.get(i), is(sameInstance(first.get(i))));
+        }
+
+        VPackFactory factory = VPackFactory.builder().disable(JsonFactory.Feature.CANONICALIZE_FIELD_NAMES).build();
+        first = fieldNames(factory, bytes);
+        second = fieldNames(factory, bytes);
+        assertThat(second, is(first));
+        assertThat(second.get(1), is(not(sameInstance(first.get(1)))));
+    }
+
+    private static List<String> fieldNames(VPackFactory factory, byte[] bytes) throws IOException {
+        List<String> names = new ArrayList<>();
+        try (JsonParser p = factory.createParser(bytes)) {
+            p.nextToken();
+            String name;
+            while ((name = p.nextFieldName()) != null) {
+                names.add(name);
+                p.nextToken();
+            }
+        }
+        return names;
+    }
+
+    @Test
+    public void textCharacters() throws IOException {
+        char[] chars = new char[200];
+        Arrays.fill(chars, 'x');
+        List<String> strings = Arrays.asList("", "abc", "\u00e4\u20ac\ud83d\ude00!", new String(chars));
+        byte[] bytes = mapper.writeValueAsBytes(strings);
+
+        JsonParser p = mapper.getFactory().createParser(bytes);
+        assertThat(p.nextToken(), is(JsonToken.START_ARRAY));
+        char[] buffer = null;
+        for (String string : strings) {
+            assertThat(p.nextToken(), is(JsonToken.VALUE_STRING));
+            assertThat(p.hasTextCharacters(), is(true));
+            assertThat(p.getTextLength(), is(string.length()));
+            assertThat(new String(p.getTextCharacters(), p.getTextOffset(), p.getTextLength()), is(string));
+            assertThat(p.getText(), is(string));
+            if (buffer != null && string.length() <= buffer.length) {
+                assertThat(p.getTextCharacters(), is(sameInstance(buffer)));
+            }
+            buffer = p.getTextCharacters();
+        }
+        assertThat(p.nextToken(), is(JsonToken.END_ARRAY));
+        assertThat(p.hasTextCharacters(), is(false));
+        assertThat(new String(p.getTextCharacters()), is("]"));
+        p.close();
+
+        // malformed UTF-8 is decoded with replacement chars, as by String
+        byte[] malformed = {0x43, (byte) 0xff, 0x41, (byte) 0xc3};
+        p = mapper.getFactory().createParser(malformed);
+        assertThat(p.nextToken(), is(JsonToken.VALUE_STRING));
+        String expected = new String(malformed, 1, 3, StandardCharsets.UTF_8);
+        assertThat(new String(p.getTextCharacters(), p.getTextOffset(), p.getTextLength()), is(expected));
+        p.close();
+    }
+
+    @Test
+    public void parsingContext() throws IOException {
+        JsonParser p = mapper.getFactory().createParser(nestedDocument());
+        assertThat(p.nextToken(), is(JsonToken.START_OBJECT));
+        assertThat(p.getParsingContext().inObject(), is(true));
+        assertThat(p.getParsingContext().getParent().inRoot(), is(true));
+        assertThat(p.nextFieldName(), is("name"));
+        assertThat(p.nextTextValue(), is("foo"));
+        assertThat(p.nextFieldName(), is("blob"));
+        assertThat(p.getParsingContext().getCurrentName(), is("blob"));
+        assertThat(p.getParsingContext().getCurrentIndex(), is(1));
+        assertThat(p.nextToken(), is(JsonToken.START_OBJECT));
+        assertThat(p.nextFieldName(), is("items"));
+        assertThat(p.nextToken(), is(JsonToken.START_ARRAY));
+        assertThat(p.nextToken(), is(JsonToken.VALUE_NUMBER_INT));
+        assertThat(p.nextToken(), is(JsonToken.VALUE_STRING));
+        JsonStreamContext context = p.getParsingContext();
+        assertThat(context.inArray(), is(true));
+        assertThat(context.getCurrentIndex(), is(1));
+        assertThat(context.getParent().getCurrentName(), is("items"));
+        assertThat(context.getParent().getParent().getCurrentName(), is("blob"));
+        assertThat(context.pathAsPointer().toString(), is("/blob/items/1"));
+        p.close();
+    }
+
+    @Test
+    public void parsingContextCurrentValue() throws IOException {
+        byte[] document = nestedDocument();
+        byte[] sequence = Arrays.copyOf(document, document.length * 2);
+        System.arraycopy(document, 0, sequence, document.length, document.length);
+        JsonParser p = mapper.getFactory().createParser(sequence);
+        Object value = new Object();
+        assertThat(p.nextToken(), is(JsonToken.START_OBJECT));
+        assertThat(p.nextFieldName(), is("name"));
+        p.getParsingContext().setCurrentValue(value);
+        assertThat(p.nextTextValue(), is("foo"));
+        assertThat(p.nextFieldName(), is("blob"));
+        assertThat(p.getParsingContext().getCurrentValue(), is(value));
+        assertThat(p.nextToken(), is(JsonToken.START_OBJECT));
+        assertThat(p.getParsingContext().getCurrentValue(), is(nullValue()));
+        assertThat(p.getParsingContext().getParent().getCurrentValue(), is(value));
+        p.getParsingContext().setCurrentValue("blob");
+        assertThat(p.nextFieldName(), is("items"));
+        assertThat(p.getParsingContext().getCurrentValue(), is((Object) "blob"));
+        assertThat(p.nextToken(), is(JsonToken.START_ARRAY));
+        p.skipChildren();
+        assertThat(p.nextFieldName(), is("nested"));
+        assertThat(p.getParsingContext().getCurrentValue(), is((Object) "blob"));
+        assertThat(p.nextToken(), is(JsonToken.START_OBJECT));
+        p.skipChildren();
+        assertThat(p.nextToken(), is(JsonToken.END_OBJECT));
+        assertThat(p.nextFieldName(), is("list"));
+        assertThat(p.nextToken(), is(JsonToken.START_ARRAY));
+        // another compound value at the same level
+        assertThat(p.getParsingContext().getCurrentValue(), is(nullValue()));
+        assertThat(p.getParsingContext().getParent().getCurrentValue(), is(value));
+        p.skipChildren();
+        assertThat(p.nextFieldName(), is("count"));
+        assertThat(p.getParsingContext().getCurrentValue(), is(value));
+        assertThat(p.nextIntValue(-1), is(42));
+        assertThat(p.nextToken(), is(JsonToken.END_OBJECT));
+        // the next root value
+        assertThat(p.nextToken(), is(JsonToken.START_OBJECT));
+        assertThat(p.getParsingContext().getCurrentValue(), is(nullValue()));
+        p.close();
+    }
+
+    @Test
+    public void compactAndTranslated() throws IOException {
+        DefaultVPackBuilderOptions options = new DefaultVPackBuilderOptions();
+        options.setBuildUnindexedArrays(true);
+        options.setBuildUnindexedObjects(true);
+        VPackBuilder builder = new VPackBuilder(options);
+        builder.add(ValueType.OBJECT);
+        builder.add("_key", "k");
+        builder.add("list", ValueType.ARRAY);
+        builder.add(1);
+        builder.add("two");
+        builder.add(ValueType.OBJECT);
+        builder.close();
+        builder.close();
+        char[] longString = new char[200];
+        Arrays.fill(longString, 'x');
+        builder.add("long", new String(longString));
+        builder.close();
+
+        JsonNode node = mapper.readTree(builder.slice().toByteArray());
+        assertThat(node.get("_key").textValue(), is("k"));
+        assertThat(node.get("list").size(), is(3));
+        assertThat(node.get("list").get(0).intValue(), is(1));
+        assertThat(node.get("list").get(1).textValue(), is("two"));
+        assertThat(node.get("list").get(2).isObject(), is(true));
+        assertThat(node.get("long").textValue().length(), is(200));
+    }
+
+    @Test
+    public void readFromStream() throws IOException {
+        Map<?, ?> map = mapper.readValue(new ByteArrayInputStream(nestedDocument()), Map.class);
+        assertThat(map.get("name"), is("foo"));
+        assertThat(map.get("count"), is(42));
+    }
+
+    @Test
+    public void readLargeValueFromStream() throws IOException {
+        ArrayNode array = mapper.createArrayNode();
+        for (int i = 0; i < 10_000; i++) {
+            array.addObject().put("i", i).put("text", "value #" + i);
+        }
+        byte[] bytes = mapper.writeValueAsBytes(array);
+        // hand out the content in small chunks
+        InputStream in = new FilterInputStream(new ByteArrayInputStream(bytes)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 7));
+            }
+        };
+        JsonNode node = mapper.readTree(in);
+        assertThat(node, is((JsonNode) array));
+    }
+
+    @Test(expected = JsonEOFException.class)
+    public void readTruncatedStream() throws IOException {
+        byte[] bytes = nestedDocument();
+        mapper.readTree(new ByteArrayInputStream(bytes, 0, bytes.length - 1));
+    }
+
+    @Test
+    public void readEmptyStream() throws IOException {
+        JsonParser p = mapper.getFactory().createParser(new ByteArrayInputStream(new byte[0]));
+        assertThat(p.nextToken(), is(nullValue()));
+        p.close();
+    }
+
+    @Test
+    public void nonBlocking() throws IOException {
+        byte[] doc = nestedDocument();
+        byte[] scalar = mapper.writeValueAsBytes("bar");
+        NonBlockingVPackParser p = mapper.getFactory().createNonBlockingByteArrayParser();
+        ByteArrayFeeder feeder = (ByteArrayFeeder) p.getNonBlockingInputFeeder();
+        assertThat(feeder.needMoreInput(), is(true));
+        assertThat(p.nextToken(), is(JsonToken.NOT_AVAILABLE));
+        for (int i = 0; i < doc.length - 1; i++) {
+            feeder.feedInput(doc, i, i + 1);
+            assertThat(p.nextToken(), is(JsonToken.NOT_AVAILABLE));
+        }
+        feeder.feedInput(doc, doc.length - 1, doc.length);
+        assertThat(feeder.needMoreInput(), is(false));
+        assertThat(p.nextToken(), is(JsonToken.START_OBJECT));
+        assertThat(p.nextFieldName(), is("name"));
+        assertThat(p.nextTextValue(), is("foo"));
+        assertThat(p.nextFieldName(), is("blob"));
+        assertThat(p.nextToken(), is(JsonToken.START_OBJECT));
+        p.skipChildren();
+        // the next root value may be fed while the current one is being parsed
+        p.feedInput(ByteBuffer.wrap(scalar));
+        assertThat(p.nextFieldName(), is("list"));
+        assertThat(p.nextToken(), is(JsonToken.START_ARRAY));
+        p.skipChildren();
+        assertThat(p.nextFieldName(), is("count"));
+        assertThat(p.nextIntValue(-1), is(42));
+        assertThat(p.nextToken(), is(JsonToken.END_OBJECT));
+        assertThat(p.nextTextValue(), is("bar"));
+        assertThat(p.nextToken(), is(JsonToken.NOT_AVAILABLE));
+        feeder.endOfInput();
+        assertThat(p.nextToken(), is(nullValue()));
+        assertThat(p.isClosed(), is(true));
+    }
+
+    @Test
+    public void nonBlockingReadValue() throws IOException {
+        ArrayNode array = mapper.createArrayNode();
+        for (int i = 0; i < 10_000; i++) {
+            array.add("value #" + i);
+        }
+        byte[] bytes = mapper.writeValueAsBytes(array);
+        JsonParser p = mapper.getFactory().createNonBlockingByteArrayParser();
+        ByteArrayFeeder feeder = (ByteArrayFeeder) p.getNonBlockingInputFeeder();
+        for (int i = 0; i < bytes.length; i += 1000) {
+            assertThat(p.nextToken(), is(JsonToken.NOT_AVAILABLE));
+            feeder.feedInput(bytes, i, Math.min(i + 1000, bytes.length));
+        }
+        feeder.endOfInput();
+        assertThat(p.nextToken(), is(JsonToken.START_ARRAY));
+        assertThat(mapper.readTree(p), is((JsonNode) array));
+        p.close();
+    }
+
+    @Test(expected = JsonEOFException.class)
+    public void nonBlockingTruncated() throws IOException {
+        byte[] bytes = nestedDocument();
+        JsonParser p = mapper.getFactory().createNonBlockingByteArrayParser();
+        ByteArrayFeeder feeder = (ByteArrayFeeder) p.getNonBlockingInputFeeder();
+        feeder.feedInput(bytes, 0, bytes.length - 1);
+        feeder.endOfInput();
+        p.nextToken();
+    }
+
+    @Test
+    public void readFromHeapByteBuffer() throws IOException {
+        byte[] doc = nestedDocument();
+        ByteBuffer buffer = ByteBuffer.allocate(doc.length + 10);
+        buffer.position(7);
+        buffer.slice().put(doc);
+        JsonParser p = mapper.getFactory().createParser(buffer.slice());
+        Map<?, ?> map = mapper.readValue(p, Map.class);
+        assertThat(map.get("name"), is("foo"));
+        assertThat(map.get("count"), is(42));
+    }
+
+    @Test
+    public void readFromDirectByteBuffer() throws IOException {
+        ObjectNode doc = mapper.createObjectNode();
+        char[] longString = new char[300];
+        Arrays.fill(longString, 'y');
+        doc.put("long", new String(longString));
+        doc.put("binary", new byte[]{1, 2, 3});
+        doc.put("double", 1.5);
+        doc.put("long", Long.MAX_VALUE);
+        doc.putArray("list").add("a").addObject().put("b", -7);
+        byte[] bytes = mapper.writeValueAsBytes(doc);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length + 3);
+        buffer.position(3);
+        buffer.duplicate().put(bytes);
+
+        JsonParser p = mapper.getFactory().createParser(buffer);
+        assertThat(mapper.readTree(p), is((JsonNode) doc));
+        assertThat(buffer.position(), is(3));
+
+        p = mapper.getFactory().createParser(buffer);
+        assertThat(p.nextToken(), is(JsonToken.START_OBJECT));
+        assertThat(((VPackParser) p).getVPack().toByteArray(), is(bytes));
+        p.close();
+    }
+
+    @Test
+    public void transcodeFromByteBuffer() throws IOException {
+        char[] longString = new char[10000];
+        Arrays.fill(longString, '\u00e4');
+        ArrayNode doc = mapper.createArrayNode().add("short \"\u20ac\"").add(new String(longString)).add(1);
+        byte[] bytes = mapper.writeValueAsBytes(doc);
+        String json = new ObjectMapper().writeValueAsString(doc);
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 3);
+        ((Buffer) direct).position(3);
+        direct.duplicate().put(bytes);
+        ByteBuffer heap = ByteBuffer.allocate(bytes.length + 5);
+        ((Buffer) heap).position(5);
+        heap = heap.slice();
+        heap.duplicate().put(bytes);
+        IOContext ctxt = new IOContext(new BufferRecycler(), heap, false);
+        for (JsonParser p : Arrays.asList(mapper.getFactory().createParser(direct),
+                new ByteBufferVPackParser(ctxt, 0, null, heap))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (JsonGenerator g = new JsonFactory().createGenerator(out)) {
+                VPackTranscoder.copy(p, g);
+            }
+            assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8), is(json));
+            p.close();
+        }
+    }
+
+    @Test
+    public void readMappedFile() throws IOException {
+        File file = temporaryFolder.newFile();
+        try (OutputStream out = new FileOutputStream(file)) {
+            for (int i = 0; i < 100; i++) {
+                ObjectNode doc = mapper.createObjectNode();
+                doc.put("i", i);
+                char[] text = new char[i * 3];
+                Arrays.fill(text, 'z');
+                doc.put("text", new String(text));
+                out.write(mapper.writeValueAsBytes(doc));
+            }
+        }
+        // segments smaller than most documents
+        MappingIterator<ObjectNode> it = mapper.readerFor(ObjectNode.class)
+                .readValues(mapper.getFactory().createMappedParser(file, 64));
+        int i = 0;
+        while (it.hasNextValue()) {
+            ObjectNode doc = it.nextValue();
+            assertThat(doc.get("i").intValue(), is(i));
+            assertThat(doc.get("text").textValue().length(), is(i * 3));
+            i++;
+        }
+        assertThat(i, is(100));
+        it.close();
+    }
+
+    @Test(expected = JsonEOFException.class)
+    public void readTruncatedMappedFile() throws IOException {
+        File file = temporaryFolder.newFile();
+        byte[] bytes = nestedDocument();
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(bytes);
+            out.write(bytes, 0, bytes.length - 1);
+        }
+        JsonParser p = mapper.getFactory().createMappedParser(file);
+        assertThat(p.nextToken(), is(JsonToken.START_OBJECT));
+        assertThat(p.skipChildren().currentToken(), is(JsonToken.END_OBJECT));
+        p.nextToken();
+    }
+
+    @Test
+    public void readAtPointer() throws IOException {
+        ObjectNode doc = mapper.createObjectNode();
+        for (int i = 0; i < 100; i++) {
+            doc.put("field" + i, i);
+        }
+        doc.put("_key", "k");
+        doc.putObject("meta").put("revision", "_abc").put("other", 1);
+        doc.putArray("list").add(1).add("two").addObject().put("three", 3);
+        byte[] bytes = mapper.writeValueAsBytes(doc);
+
+        assertThat(mapper.reader().at("/meta/revision").readValue(bytes, String.class), is("_abc"));
+        assertThat(mapper.readerFor(int.class).at("/field42").<Integer>readValue(bytes), is(42));
+        assertThat(mapper.reader().at("/_key").readTree(bytes).textValue(), is("k"));
+        assertThat(mapper.reader().at("/list/1").readTree(bytes).textValue(), is("two"));
+        assertThat(mapper.reader().at("/list/2/three").readTree(bytes).intValue(), is(3));
+        assertThat(mapper.reader().at("/list/2").readTree(bytes), is(doc.at("/list/2")));
+        assertThat(mapper.reader().at("").readTree(bytes), is((JsonNode) doc));
+        assertThat(mapper.reader().at("/meta/revision").readTree(new ByteArrayInputStream(bytes)).textValue(),
+                is("_abc"));
+
+        JsonParser p = mapper.getFactory().createParser(bytes);
+        assertThat(((VPackParser) p).seek(JsonPointer.compile("/missing")), is(true));
+        assertThat(p.nextToken(), is(nullValue()));
+        p = mapper.getFactory().createParser(bytes);
+        assertThat(((VPackParser) p).seek(JsonPointer.compile("/list/3")), is(true));
+        assertThat(p.nextToken(), is(nullValue()));
+        p = mapper.getFactory().createParser(bytes);
+        assertThat(((VPackParser) p).seek(JsonPointer.compile("/meta")), is(true));
+        assertThat(p.nextToken(), is(JsonToken.START_OBJECT));
+        assertThat(p.nextFieldName(), is("revision"));
+        assertThat(p.nextTextValue(), is("_abc"));
+        assertThat(p.nextFieldName(), is("other"));
+        assertThat(p.nextIntValue(-1), is(1));
+        assertThat(p.nextToken(), is(JsonToken.END_OBJECT));
+        assertThat(p.nextToken(), is(nullValue()));
+    }
+
+    @Test
+    public void readAtPointerUnindexed() throws IOException {
+        DefaultVPackBuilderOptions options = new DefaultVPackBuilderOptions();
+        options.setBuildUnindexedArrays(true);
+        options.setBuildUnindexedObjects(true);
+        VPackBuilder builder = new VPackBuilder(options);
+        builder.add(ValueType.OBJECT);
+        builder.add("a", 1);
+        builder.add("b", ValueType.ARRAY);
+        builder.add("x");
+        builder.add("y");
+        builder.close();
+        builder.add("_key", "k");
+        builder.close();
+        byte[] bytes = builder.slice().toByteArray();
+
+        assertThat(mapper.reader().at("/b/1").readTree(bytes).textValue(), is("y"));
+        assertThat(mapper.reader().at("/_key").readTree(bytes).textValue(), is("k"));
+        assertThat(mapper.reader().at("/a").readTree(bytes).intValue(), is(1));
+    }
+
+    @Test
+    public void uintNumberType() throws IOException {
+        BigInteger big = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        VPackBuilder builder = new VPackBuilder();
+        builder.add(ValueType.ARRAY);
+        builder.add(BigInteger.valueOf(200), ValueType.UINT);
+        builder.add(BigInteger.valueOf(Integer.MAX_VALUE), ValueType.UINT);
+        builder.add(BigInteger.valueOf(1L << 40), ValueType.UINT);
+        builder.add(big, ValueType.UINT);
+        builder.close();
+        byte[] bytes = builder.slice().toByteArray();
+
+        JsonParser p = mapper.getFactory().createParser(bytes);
+        assertThat(p.nextToken(), is(JsonToken.START_ARRAY));
+        assertThat(p.nextToken(), is(JsonToken.VALUE_NUMBER_INT));
+        assertThat(p.getNumberType(), is(JsonParser.NumberType.INT));
+        assertThat(p.getNumberValue(), is(200));
+        assertThat(p.nextToken(), is(JsonToken.VALUE_NUMBER_INT));
+        assertThat(p.getNumberType(), is(JsonParser.NumberType.INT));
+        assertThat(p.getNumberValue(), is(Integer.MAX_VALUE));
+        assertThat(p.nextToken(), is(JsonToken.VALUE_NUMBER_INT));
+        assertThat(p.getNumberType(), is(JsonParser.NumberType.LONG));
+        assertThat(p.getNumberValue(), is(1L << 40));
+        assertThat(p.nextToken(), is(JsonToken.VALUE_NUMBER_INT));
+        assertThat(p.getNumberType(), is(JsonParser.NumberType.BIG_INTEGER));
+        assertThat(p.getNumberValue(), is(big));
+        assertThat(p.getDoubleValue(), is(big.doubleValue()));
+        assertThat(p.getDecimalValue(), is(new BigDecimal(big)));
+
+        JsonNode tree = mapper.readTree(bytes);
+        assertThat(tree.get(0).isInt(), is(true));
+        assertThat(tree.get(2).isLong(), is(true));
+        assertThat(tree.get(3).bigIntegerValue(), is(big));
+    }
+
+    @Test
+    public void numberDecodedOncePerToken() throws IOException {
+        ArrayNode array = mapper.createArrayNode();
+        array.add(1L << 40);
+        array.add(2.5);
+        array.add(-3);
+        byte[] bytes = mapper.writeValueAsBytes(array);
+        final int[] reads = new int[1];
+        VPackParser p = new VPackParser(null, 0, mapper, bytes, 0, bytes.length, false) {
+            @Override
+            protected long readInteger(int start) {
+                reads[0]++;
+                return super.readInteger(start);
+            }
+
+            @Override
+            protected double readDouble(int start) {
+                reads[0]++;
+                return super.readDouble(start);
+            }
+        };
+
+        assertThat(p.nextToken(), is(JsonToken.START_ARRAY));
+        assertThat(p.nextToken(), is(JsonToken.VALUE_NUMBER_INT));
+        assertThat(p.getNumberType(), is(JsonParser.NumberType.LONG));
+        assertThat(p.getLongValue(), is(1L << 40));
+        assertThat(p.getNumberValue(), is(1L << 40));
+        assertThat(p.getText(), is(String.valueOf(1L << 40)));
+        assertThat(reads[0], is(1));
+        assertThat(p.nextToken(), is(JsonToken.VALUE_NUMBER_FLOAT));
+        assertThat(p.getNumberType(), is(JsonParser.NumberType.DOUBLE));
+        assertThat(p.getDoubleValue(), is(2.5));
+        assertThat(p.getDecimalValue(), is(BigDecimal.valueOf(2.5)));
+        assertThat(reads[0], is(2));
+        assertThat(p.nextToken(), is(JsonToken.VALUE_NUMBER_INT));
+        assertThat(p.getNumberType(), is(JsonParser.NumberType.INT));
+        assertThat(p.getIntValue(), is(-3));
+        assertThat(p.getBigIntegerValue(), is(BigInteger.valueOf(-3)));
+        assertThat(reads[0], is(3));
+        assertThat(p.nextToken(), is(JsonToken.END_ARRAY));
+    }
+
+    @Test
+    public void binaryValues() throws IOException {
+        byte[] data = new byte[300];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        ObjectNode doc = mapper.createObjectNode();
+        doc.put("data", data);
+        doc.put("text", "abc");
+        byte[] bytes = mapper.writeValueAsBytes(doc);
+
+        JsonParser p = mapper.getFactory().createParser(bytes);
+        assertThat(p.nextToken(), is(JsonToken.START_OBJECT));
+        assertThat(p.nextToken(), is(JsonToken.FIELD_NAME));
+        assertThat(p.nextToken(), is(JsonToken.VALUE_EMBEDDED_OBJECT));
+        assertThat(p.getEmbeddedObject(), is(data));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(p.readBinaryValue(out), is(data.length));
+        assertThat(out.toByteArray(), is(data));
+        p.close();
+
+        // views over heap and direct buffers
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        for (JsonParser parser : Arrays.asList(
+                mapper.reader().with(VPackParser.Feature.BINARY_AS_BYTE_BUFFER).createParser(bytes),
+                VPackFactory.builder().enable(VPackParser.Feature.BINARY_AS_BYTE_BUFFER).build()
+                        .createParser(direct))) {
+            assertThat(parser.nextToken(), is(JsonToken.START_OBJECT));
+            assertThat(parser.nextToken(), is(JsonToken.FIELD_NAME));
+            assertThat(parser.nextToken(), is(JsonToken.VALUE_EMBEDDED_OBJECT));
+            ByteBuffer view = (ByteBuffer) parser.getEmbeddedObject();
+            assertThat(view.isReadOnly(), is(true));
+            assertThat(view, is(ByteBuffer.wrap(data)));
+            out.reset();
+            assertThat(parser.readBinaryValue(out), is(data.length));
+            assertThat(out.toByteArray(), is(data));
+            assertThat(parser.nextFieldName(), is("text"));
+            assertThat(parser.nextTextValue(), is("abc"));
+            parser.close();
+        }
+    }
+
+    public static class Binary {
+        public byte[] data;
+        public ByteBuffer buffer;
+        public String text;
+    }
+
+    @Test
+    public void binaryValuesDataBinding() throws IOException {
+        Binary binary = new Binary();
+        binary.data = new byte[]{1, 2, 3};
+        binary.buffer = ByteBuffer.wrap(new byte[]{4, 5});
+        binary.text = "abc";
+        byte[] bytes = mapper.writeValueAsBytes(binary);
+
+        VPackMapper viewing = new VPackMapper(
+                VPackFactory.builder().enable(VPackParser.Feature.BINARY_AS_BYTE_BUFFER).build());
+        for (Binary read : Arrays.<Binary>asList(viewing.readValue(bytes, Binary.class),
+                mapper.readerFor(Binary.class).with(VPackParser.Feature.BINARY_AS_BYTE_BUFFER).readValue(bytes))) {
+            assertThat(read.data, is(binary.data));
+            assertThat(read.buffer, is(binary.buffer));
+            assertThat(read.text, is("abc"));
+        }
+
+        JsonParser p = viewing.getFactory().createParser(bytes);
+        while (p.nextToken() != JsonToken.VALUE_EMBEDDED_OBJECT) {
+            // skip to data
+        }
+        assertThat(p.getText(), is(Base64Variants.getDefaultVariant().encode(binary.data)));
+        p.close();
+    }
+
+    @Test(expected = MismatchedInputException.class)
+    public void binaryValuesDataBindingWithoutHandler() throws IOException {
+        Binary binary = new Binary();
+        binary.data = new byte[]{1, 2, 3};
+        // plain ObjectMapper, without the byte[] deserializer of VPackMapper
+        new ObjectMapper(VPackFactory.builder().enable(VPackParser.Feature.BINARY_AS_BYTE_BUFFER).build())
+                .readValue(mapper.writeValueAsBytes(binary), Binary.class);
+    }
+
+    @Test
+    public void projection() throws IOException {
+        VPackSchema schema = mapper.schemaFor(Narrow.class);
+        assertThat(schema.getNames(), containsInAnyOrder("name", "count"));
+        Narrow narrow = mapper.readerFor(Narrow.class).with(schema).readValue(nestedDocument());
+        assertThat(narrow.name, is("foo"));
+        assertThat(narrow.count, is(42));
+
+        DefaultVPackBuilderOptions options = new DefaultVPackBuilderOptions();
+        options.setBuildUnindexedObjects(true);
+        VPackBuilder builder = new VPackBuilder(options);
+        builder.add(ValueType.OBJECT);
+        builder.add("name", "foo");
+        builder.add("blob", ValueType.OBJECT);
+        builder.add("name", "nested");
+        builder.close();
+        builder.add("count", 42);
+        builder.close();
+        for (byte[] bytes : Arrays.asList(nestedDocument(), builder.slice().toByteArray())) {
+            JsonParser p = mapper.getFactory().createParser(bytes);
+            p.setSchema(VPackSchema.of("count", "missing", "blob", "name"));
+            assertThat(p.nextToken(), is(JsonToken.START_OBJECT));
+            assertThat(p.nextFieldName(), is("name"));
+            assertThat(p.nextTextValue(), is("foo"));
+            assertThat(p.nextFieldName(), is("blob"));
+            assertThat(p.nextToken(), is(JsonToken.START_OBJECT));
+            assertThat(p.skipChildren().currentToken(), is(JsonToken.END_OBJECT));
+            assertThat(p.nextFieldName(), is("count"));
+            assertThat(p.nextIntValue(-1), is(42));
+            assertThat(p.nextToken(), is(JsonToken.END_OBJECT));
+            assertThat(p.nextToken(), is(nullValue()));
+            p.close();
+        }
+
+        ObjectNode expected = mapper.createObjectNode();
+        expected.put("name", "foo");
+        expected.put("count", 42);
+        assertThat(mapper.reader().with(VPackSchema.of("name", "count")).readTree(nestedDocument()),
+                is(expected));
+
+        // projected root Objects are not copied as a single block
+        JsonParser p = mapper.reader().with(VPackSchema.of("name", "count")).createParser(nestedDocument());
+        p.nextToken();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator g = mapper.getFactory().createGenerator(out)) {
+            g.copyCurrentStructure(p);
+        }
+        assertThat(mapper.readTree(out.toByteArray()), is(expected));
+    }
+
+}
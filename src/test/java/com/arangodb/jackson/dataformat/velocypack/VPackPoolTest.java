@@ -0,0 +1,138 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2016 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+
+package com.arangodb.jackson.dataformat.velocypack;
+
+import com.arangodb.jackson.dataformat.velocypack.internal.VPackGenerator;
+import com.arangodb.jackson.dataformat.velocypack.internal.VPackParser;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class VPackPoolTest {
+
+    private final VPackMapper mapper = new VPackMapper();
+    private final VPackPool pool = new VPackPool((VPackFactory) mapper.getFactory());
+
+    public static class Doc {
+        public String name;
+        public int count;
+    }
+
+    private byte[] write(String name, int count) throws IOException {
+        Doc doc = new Doc();
+        doc.name = name;
+        doc.count = count;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        VPackGenerator g = pool.acquireGenerator(out);
+        try {
+            mapper.writeValue(g, doc);
+        } finally {
+            pool.release(g);
+        }
+        return out.toByteArray();
+    }
+
+    private Doc read(byte[] bytes) throws IOException {
+        VPackParser p = pool.acquireParser(bytes);
+        try {
+            return mapper.readValue(p, Doc.class);
+        } finally {
+            pool.release(p);
+        }
+    }
+
+    @Test
+    public void reuseInstances() throws IOException {
+        for (int i = 0; i < 3; i++) {
+            byte[] bytes = write("doc" + i, i);
+            assertThat(bytes, is(mapper.writeValueAsBytes(read(bytes))));
+            Doc doc = read(bytes);
+            assertThat(doc.name, is("doc" + i));
+            assertThat(doc.count, is(i));
+        }
+
+        VPackParser p = pool.acquireParser(new byte[]{0x31});
+        pool.release(p);
+        assertThat(pool.acquireParser(new byte[]{0x32}), is(sameInstance(p)));
+
+        VPackGenerator g = pool.acquireGenerator(new ByteArrayOutputStream());
+        pool.release(g);
+        assertThat(pool.acquireGenerator(new ByteArrayOutputStream()), is(sameInstance(g)));
+    }
+
+    @Test
+    public void resetState() throws IOException {
+        VPackParser p = pool.acquireParser(mapper.writeValueAsBytes(new int[]{1, 2}));
+        p.enable(JsonParser.Feature.STRICT_DUPLICATE_DETECTION);
+        assertThat(p.nextToken(), is(JsonToken.START_ARRAY));
+        assertThat(p.nextToken(), is(JsonToken.VALUE_NUMBER_INT));
+        pool.release(p);
+
+        p = pool.acquireParser(mapper.writeValueAsBytes("x"));
+        assertThat(p.isEnabled(JsonParser.Feature.STRICT_DUPLICATE_DETECTION), is(false));
+        assertThat(p.isClosed(), is(false));
+        assertThat(p.currentToken(), is((JsonToken) null));
+        assertThat(p.nextToken(), is(JsonToken.VALUE_STRING));
+        assertThat(p.getText(), is("x"));
+        assertThat(p.nextToken(), is((JsonToken) null));
+        pool.release(p);
+
+        Map<String, Integer> doc = new LinkedHashMap<>();
+        doc.put("a", 1);
+        doc.put("b", 2);
+        p = pool.acquireParser(mapper.writeValueAsBytes(doc));
+        p.setSchema(VPackSchema.of("a"));
+        assertThat(mapper.readValue(p, Map.class), is((Map<?, ?>) Collections.singletonMap("a", 1)));
+        pool.release(p);
+
+        p = pool.acquireParser(mapper.writeValueAsBytes(doc));
+        assertThat(p.getSchema(), is((VPackSchema) null));
+        assertThat(mapper.readValue(p, Map.class), is((Map<?, ?>) doc));
+        pool.release(p);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        VPackGenerator g = pool.acquireGenerator(out);
+        g.writeStartArray();
+        g.writeNumber(1);
+        pool.release(g);
+
+        out = new ByteArrayOutputStream();
+        g = pool.acquireGenerator(out);
+        assertThat(g.isClosed(), is(false));
+        g.enable(JsonGenerator.Feature.WRITE_NUMBERS_AS_STRINGS);
+        g.writeString("y");
+        pool.release(g);
+        assertThat(out.toByteArray(), is(mapper.writeValueAsBytes("y")));
+    }
+
+}
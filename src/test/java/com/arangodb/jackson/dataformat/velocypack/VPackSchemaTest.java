@@ -0,0 +1,189 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2016 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+
+package com.arangodb.jackson.dataformat.velocypack;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+
+public class VPackSchemaTest {
+
+    private final VPackMapper mapper = new VPackMapper();
+
+    public static class Narrow {
+        public String name;
+        @JsonAlias("total")
+        public int count;
+    }
+
+    @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "type")
+    @JsonSubTypes({@JsonSubTypes.Type(value = Sub.class, name = "sub"), @JsonSubTypes.Type(value = Other.class,
+            name = "other")})
+    public static class Base {
+        public String a;
+    }
+
+    public static class Sub extends Base {
+        public String b;
+    }
+
+    public static class Other extends Base {
+        public String c;
+    }
+
+    public static class Point {
+        public int x;
+        public int y;
+    }
+
+    public static class Outer {
+        public String name;
+        @JsonUnwrapped
+        public Point inner;
+        @JsonUnwrapped(prefix = "to.")
+        public Point target;
+    }
+
+    @JsonTypeInfo(use = JsonTypeInfo.Id.DEDUCTION)
+    @JsonSubTypes({@JsonSubTypes.Type(Deduced.class)})
+    public static class DeducedBase {
+    }
+
+    public static class Deduced extends DeducedBase {
+        public String d;
+    }
+
+    @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, include = JsonTypeInfo.As.WRAPPER_OBJECT)
+    @JsonSubTypes({@JsonSubTypes.Type(value = Wrapped.class, name = "wrapped")})
+    public static class WrappedBase {
+    }
+
+    public static class Wrapped extends WrappedBase {
+        public String w;
+    }
+
+    public static class WithExternal {
+        public String kind;
+        @JsonTypeInfo(use = JsonTypeInfo.Id.NAME, include = JsonTypeInfo.As.EXTERNAL_PROPERTY, property = "kind")
+        @JsonSubTypes({@JsonSubTypes.Type(value = Point.class, name = "point")})
+        public Object value;
+    }
+
+    public static class WithAnySetter {
+        public String name;
+
+        @JsonAnySetter
+        public void set(String key, Object value) {
+        }
+    }
+
+    private byte[] bytes(Object... members) throws IOException {
+        ObjectNode doc = mapper.createObjectNode();
+        for (int i = 0; i < members.length; i += 2) {
+            doc.put((String) members[i], (String) members[i + 1]);
+        }
+        doc.put("unused", "u");
+        return mapper.writeValueAsBytes(doc);
+    }
+
+    @Test
+    public void properties() throws IOException {
+        VPackSchema schema = mapper.schemaFor(Narrow.class);
+        assertThat(schema.getNames(), containsInAnyOrder("name", "count", "total"));
+        assertThat(schema.getSchemaType(), is(mapper.getFactory().getFormatName()));
+        Narrow narrow = mapper.readerFor(Narrow.class).with(schema).readValue(bytes("name", "foo", "total", "7"));
+        assertThat(narrow.name, is("foo"));
+        assertThat(narrow.count, is(7));
+    }
+
+    @Test
+    public void subtypes() throws IOException {
+        VPackSchema schema = mapper.schemaFor(Base.class);
+        assertThat(schema.getNames(), containsInAnyOrder("type", "a", "b", "c"));
+        Base value = mapper.readerFor(Base.class).with(schema).readValue(bytes("type", "sub", "a", "A", "b", "B"));
+        assertThat(value, instanceOf(Sub.class));
+        assertThat(value.a, is("A"));
+        assertThat(((Sub) value).b, is("B"));
+    }
+
+    @Test
+    public void unwrapped() throws IOException {
+        VPackSchema schema = mapper.schemaFor(Outer.class);
+        assertThat(schema.getNames(), containsInAnyOrder("name", "x", "y", "to.x", "to.y"));
+        ObjectNode doc = mapper.createObjectNode().put("x", 1).put("y", 2).put("to.x", 3).put("to.y", 4)
+                .put("name", "n").put("unused", "u");
+        Outer outer = mapper.readerFor(Outer.class).with(schema).readValue(mapper.writeValueAsBytes(doc));
+        assertThat(outer.name, is("n"));
+        assertThat(outer.inner.x, is(1));
+        assertThat(outer.inner.y, is(2));
+        assertThat(outer.target.x, is(3));
+        assertThat(outer.target.y, is(4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void anySetter() {
+        mapper.schemaFor(WithAnySetter.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void deduction() {
+        mapper.schemaFor(DeducedBase.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void wrapperObject() {
+        mapper.schemaFor(WrappedBase.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void externalProperty() {
+        mapper.schemaFor(WithExternal.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void defaultTyping() {
+        VPackMapper typing = new VPackMapper();
+        typing.activateDefaultTyping(BasicPolymorphicTypeValidator.builder().allowIfBaseType(Object.class).build(),
+                ObjectMapper.DefaultTyping.NON_FINAL);
+        typing.schemaFor(Narrow.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void notBean() {
+        mapper.schemaFor(Map.class);
+    }
+
+}
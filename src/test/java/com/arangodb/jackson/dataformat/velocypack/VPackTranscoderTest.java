@@ -0,0 +1,111 @@
+/*
+ * DISCLAIMER
+ *
+ * Copyright 2016 ArangoDB GmbH, Cologne, Germany
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Copyright holder is ArangoDB GmbH, Cologne, Germany
+ */
+
+
+package com.arangodb.jackson.dataformat.velocypack;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class VPackTranscoderTest {
+
+    private static final String JSON = "{\"name\":\"doc\",\"_key\":\"k\",\"unicode\":\"\u00e4\u00f6\u00fc \u20ac \ud83d\ude00\","
+            + "\"long\":\"" + new String(new char[50]).replace("\0", "\u00e4bc") + "\","
+            + "\"ints\":[0,-6,9,10,-7,255,65536,-2147483648,2147483648,9223372036854775807,18446744073709551616],"
+            + "\"doubles\":[0.5,-1.25e-10,1e300],\"flags\":[true,false,null],"
+            + "\"nested\":{\"empty\":{},\"none\":[],\"deep\":{\"a\":[{\"b\":1}]}}}";
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final VPackMapper mapper = new VPackMapper();
+    private final VPackTranscoder transcoder = new VPackTranscoder();
+
+    @Test
+    public void toVPack() throws IOException {
+        byte[] expected = mapper.writeValueAsBytes(jsonMapper.readTree(JSON));
+        assertThat(transcoder.toVPack(JSON), is(expected));
+        assertThat(transcoder.toVPack(JSON.getBytes(StandardCharsets.UTF_8)), is(expected));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        transcoder.toVPack(new ByteArrayInputStream(JSON.getBytes(StandardCharsets.UTF_8)), out);
+        assertThat(out.toByteArray(), is(expected));
+    }
+
+    @Test
+    public void toVPackSequence() throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(mapper.writeValueAsBytes(1));
+        expected.write(mapper.writeValueAsBytes("two"));
+        expected.write(mapper.writeValueAsBytes(jsonMapper.readTree(JSON)));
+        assertThat(transcoder.toVPack("1 \"two\"\n" + JSON), is(expected.toByteArray()));
+    }
+
+    @Test
+    public void toJson() throws IOException {
+        ObjectNode doc = (ObjectNode) jsonMapper.readTree(JSON);
+        doc.put("escapes", "\"quoted\" \\ / \n\t\u0001\u001f \u2028");
+        doc.put("binary", new byte[]{1, 2, 3});
+        byte[] vpack = mapper.writeValueAsBytes(doc);
+        String expected = jsonMapper.writeValueAsString(mapper.readTree(vpack));
+        assertThat(transcoder.toJson(vpack), is(expected));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        transcoder.toJson(new ByteArrayInputStream(vpack), out);
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8), is(expected));
+
+        out.reset();
+        ByteBuffer direct = ByteBuffer.allocateDirect(vpack.length);
+        direct.put(vpack).flip();
+        try (JsonParser p = mapper.getFactory().createParser(direct);
+             JsonGenerator g = jsonMapper.getFactory().createGenerator(out)) {
+            VPackTranscoder.copy(p, g);
+        }
+        assertThat(new String(out.toByteArray(), StandardCharsets.UTF_8), is(expected));
+
+        JsonFactory asciiFactory = new JsonFactory();
+        asciiFactory.enable(JsonGenerator.Feature.ESCAPE_NON_ASCII);
+        VPackTranscoder ascii = new VPackTranscoder(asciiFactory, new VPackFactory());
+        assertThat(ascii.toJson(vpack), is(new ObjectMapper(asciiFactory).writeValueAsString(mapper.readTree(vpack))));
+    }
+
+    @Test
+    public void toJsonSequence() throws IOException {
+        ByteArrayOutputStream vpack = new ByteArrayOutputStream();
+        vpack.write(mapper.writeValueAsBytes(1));
+        vpack.write(mapper.writeValueAsBytes("two"));
+        byte[] doc = transcoder.toVPack(JSON);
+        vpack.write(doc);
+        assertThat(transcoder.toJson(vpack.toByteArray()),
+                is("1 \"two\" " + jsonMapper.writeValueAsString(mapper.readTree(doc))));
+    }
+
+}